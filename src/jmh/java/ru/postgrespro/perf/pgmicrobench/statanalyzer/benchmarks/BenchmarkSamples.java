@@ -0,0 +1,52 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+
+/**
+ * Latency-like samples for benchmarks: mixtures of well separated log-normal modes
+ * with equal weights, generated by {@link PgDistribution#generate(int, Random)}.
+ */
+final class BenchmarkSamples {
+    static final long SEED = 42;
+
+    private BenchmarkSamples() {
+    }
+
+    /**
+     * Returns distribution with given number of modes.
+     *
+     * @param modality number of modes, positive.
+     * @return log-normal distribution or mixture of them.
+     */
+    static PgDistribution distribution(int modality) {
+        if (modality == 1) {
+            return new PgLogNormalDistribution(1, 0.2);
+        }
+
+        List<PgDistribution> modes = new ArrayList<>(modality);
+        for (int i = 0; i < modality; i++) {
+            modes.add(new PgLogNormalDistribution(1 + i, 0.1));
+        }
+        return new PgCompositeDistribution(modes, Collections.nCopies(modality, 1.0));
+    }
+
+    /**
+     * Generates sample of given size and modality with fixed seed.
+     *
+     * @param size     sample size.
+     * @param modality number of modes.
+     * @return generated sample.
+     */
+    static Sample generate(int size, int modality) {
+        return distribution(modality).generate(size, new Random(SEED));
+    }
+}
@@ -0,0 +1,89 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgFrechetDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGammaDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgWeibullDistribution;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Per-point {@link PgDistribution#pdf(double)}, {@link PgDistribution#cdf(double)} and
+ * {@link PgDistribution#logPdf(double)} of every simple family over fixed sample,
+ * the work optimizer repeats for every evaluated point. Parameters are close to fitted ones of latency samples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistributionBenchmark {
+    private static final int SIZE = 10_000;
+
+    @Param({"Normal", "LogNormal", "Gumbel", "Weibull", "Frechet", "Gamma"})
+    private String family;
+
+    private PgDistribution distribution;
+    private double[] values;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (family) {
+            case "Normal":
+                distribution = new PgNormalDistribution(3, 0.6);
+                break;
+            case "LogNormal":
+                distribution = new PgLogNormalDistribution(1, 0.2);
+                break;
+            case "Gumbel":
+                distribution = new PgGumbelDistribution(2.5, 0.4);
+                break;
+            case "Weibull":
+                distribution = new PgWeibullDistribution(5, 3);
+                break;
+            case "Frechet":
+                distribution = new PgFrechetDistribution(6, 2.5);
+                break;
+            case "Gamma":
+                distribution = new PgGammaDistribution(25, 0.12);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown family: " + family);
+        }
+
+        values = BenchmarkSamples.generate(SIZE, 1).getValueArray();
+    }
+
+    @Benchmark
+    public double pdf() {
+        double sum = 0;
+        for (double value : values) {
+            sum += distribution.pdf(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double cdf() {
+        double sum = 0;
+        for (double value : values) {
+            sum += distribution.cdf(value);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double logPdf() {
+        double sum = 0;
+        for (double value : values) {
+            sum += distribution.logPdf(value);
+        }
+        return sum;
+    }
+}
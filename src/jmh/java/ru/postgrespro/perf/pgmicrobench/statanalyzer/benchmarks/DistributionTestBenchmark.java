@@ -0,0 +1,67 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.IDistributionTest;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.KolmogorovSmirnov;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.Multicriteria;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.Pearson;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Single {@link IDistributionTest#statistic(Sample, PgDistribution)} evaluation, the inner loop of fitting.
+ * Sample is sorted during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistributionTestBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"1", "2"})
+    private int modality;
+
+    @Param({"CramerVonMises", "KolmogorovSmirnov", "Pearson", "Multicriteria"})
+    private String test;
+
+    private IDistributionTest distributionTest;
+    private Sample sample;
+    private PgDistribution distribution;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (test) {
+            case "CramerVonMises":
+                distributionTest = new CramerVonMises();
+                break;
+            case "KolmogorovSmirnov":
+                distributionTest = new KolmogorovSmirnov();
+                break;
+            case "Pearson":
+                distributionTest = new Pearson();
+                break;
+            case "Multicriteria":
+                distributionTest = new Multicriteria();
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown test: " + test);
+        }
+
+        distribution = BenchmarkSamples.distribution(modality);
+        sample = BenchmarkSamples.generate(size, modality);
+        sample.getSortedValueArray();
+    }
+
+    @Benchmark
+    public double statistic() {
+        return distributionTest.statistic(sample, distribution);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.HarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.TrimmedHarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.density.QuantileRespectfulDensityHistogramBuilder;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.multimodality.LowlandModalityDetector;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.multimodality.ModalityData;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * {@link LowlandModalityDetector#detectModes(WeightedSample)} with exact and trimmed Harrell-Davis
+ * quantile estimators. Sample is sorted during setup, so only detection is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModalityDetectorBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"1", "2", "3"})
+    private int modality;
+
+    @Param({"trimmed", "exact"})
+    private String estimator;
+
+    private WeightedSample sample;
+    private LowlandModalityDetector detector;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sample = WeightedSample.evenWeightedSample(BenchmarkSamples.generate(size, modality).getValueArray());
+        sample.getSortedValueArray();
+        sample.getSortedWeightArray();
+
+        detector = new LowlandModalityDetector(0.5, 0.01, false, new QuantileRespectfulDensityHistogramBuilder(
+                "exact".equals(estimator)
+                        ? HarrellDavisQuantileEstimator.getInstance()
+                        : TrimmedHarrellDavisQuantileEstimator.getInstance()));
+    }
+
+    @Benchmark
+    public ModalityData detectModes() {
+        return detector.detectModes(sample);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.IDistributionTest;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.KolmogorovSmirnov;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * CMA-ES fitting by {@link PgOptimizer} of simple log-normal distribution to unimodal sample
+ * and of composite distribution to bimodal one. Starting points are shifted from true parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OptimizerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"CramerVonMises", "KolmogorovSmirnov"})
+    private String statistic;
+
+    private IDistributionTest distributionTest;
+    private Sample simpleSample;
+    private PgSimpleDistribution simpleStart;
+    private Sample compositeSample;
+    private PgCompositeDistribution compositeStart;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        distributionTest = "CramerVonMises".equals(statistic) ? new CramerVonMises() : new KolmogorovSmirnov();
+
+        simpleSample = BenchmarkSamples.generate(size, 1);
+        simpleStart = new PgLogNormalDistribution(1.2, 0.3);
+
+        compositeSample = BenchmarkSamples.generate(size, 2);
+        PgCompositeDistribution target = (PgCompositeDistribution) BenchmarkSamples.distribution(2);
+        List<PgDistribution> shifted = new ArrayList<>();
+        for (PgDistribution mode : target.getDistributions()) {
+            double[] params = mode.getParamArray();
+            shifted.add(new PgLogNormalDistribution(params[0] * 1.1, params[1] * 1.5));
+        }
+        compositeStart = new PgCompositeDistribution(shifted, List.of(0.4, 0.6));
+    }
+
+    @Benchmark
+    public double[] optimizeSimple() {
+        return PgOptimizer.optimize(simpleSample, simpleStart, distributionTest);
+    }
+
+    @Benchmark
+    public double[] optimizeComposite() {
+        return PgOptimizer.optimize(compositeSample, compositeStart, distributionTest);
+    }
+}
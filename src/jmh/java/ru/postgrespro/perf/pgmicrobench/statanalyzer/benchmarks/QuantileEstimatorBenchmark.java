@@ -0,0 +1,67 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.HarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.IQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.TrimmedHarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+/**
+ * Quantiles 0, 0.01, ..., 1 as requested by density histogram builder, sequentially
+ * and on dedicated fork-join pool with thread per available processor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class QuantileEstimatorBenchmark {
+    private static final List<Double> PROBABILITIES = IntStream.rangeClosed(0, 100)
+            .mapToObj(i -> i / 100.0)
+            .collect(Collectors.toUnmodifiableList());
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"exact", "trimmed"})
+    private String estimator;
+
+    private WeightedSample sample;
+    private IQuantileEstimator quantileEstimator;
+    private ForkJoinPool pool;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sample = WeightedSample.evenWeightedSample(BenchmarkSamples.generate(size, 1).getValueArray());
+        sample.getSortedValueArray();
+        sample.getSortedWeightArray();
+
+        quantileEstimator = "exact".equals(estimator)
+                ? HarrellDavisQuantileEstimator.getInstance()
+                : TrimmedHarrellDavisQuantileEstimator.getInstance();
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double[] quantiles() {
+        return quantileEstimator.quantiles(sample, PROBABILITIES);
+    }
+
+    @Benchmark
+    public double[] parallelQuantiles() {
+        return quantileEstimator.quantiles(sample, PROBABILITIES, pool);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.AnalysisResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.StatAnalyzer;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Whole {@link StatAnalyzer#analyze(List)} pipeline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class StatAnalyzerBenchmark {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"1", "2", "3"})
+    private int modality;
+
+    private List<Double> values;
+    private ExecutorService pool;
+    private StatAnalyzer statAnalyzer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        values = BenchmarkSamples.generate(size, modality).getValues();
+        pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Setup(Level.Invocation)
+    public void newAnalyzer() {
+        statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(BenchmarkSamples.SEED))
+                .pool(pool)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public AnalysisResult analyze() {
+        return statAnalyzer.analyze(values);
+    }
+}
@@ -1,7 +1,12 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer;
 
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Setter;
+import lombok.ToString;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics.AnalysisMetrics;
 
 import java.util.List;
 import java.util.function.Function;
@@ -9,7 +14,8 @@ import java.util.function.Function;
 
 /**
  * The AnalysisResult class encapsulates the results of a statistical
- * analysis performed on a dataset.
+ * analysis performed on a dataset. Time and resources spent by every stage
+ * of analysis are available in {@link #getMetrics()}, they are not part of value of result.
  */
 @Data
 public class AnalysisResult {
@@ -17,4 +23,8 @@ public class AnalysisResult {
     final double pValue;
     final List<ModeReport> modeReports;
     final PgCompositeDistribution compositeDistribution;
+    @Setter(AccessLevel.PACKAGE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    AnalysisMetrics metrics;
 }
@@ -0,0 +1,43 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.VirtualThreads;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Threads running tasks of {@link StatAnalyzer} which owns executor of the mode and shuts it down on close.
+ */
+public enum ExecutionMode {
+    /**
+     * Fork-join pool with thread per available processor. Idle threads of pool terminate,
+     * so pool of analyzer which is not closed doesn't keep threads alive.
+     */
+    FORK_JOIN {
+        @Override
+        Executor newExecutor() {
+            return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        }
+    },
+    /**
+     * New virtual thread for every task, requires Java 21 or newer.
+     */
+    VIRTUAL_THREADS {
+        @Override
+        Executor newExecutor() {
+            return VirtualThreads.newExecutor();
+        }
+    },
+    /**
+     * Every task runs in thread submitting it, analysis is sequential in calling thread.
+     */
+    CALLER_THREAD {
+        @Override
+        Executor newExecutor() {
+            return Runnable::run;
+        }
+    };
+
+    abstract Executor newExecutor();
+}
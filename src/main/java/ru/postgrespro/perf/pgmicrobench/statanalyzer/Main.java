@@ -1,14 +1,12 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer;
 
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.TextSampleReader;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.plotting.Plot;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Scanner;
+import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Main class.
@@ -17,21 +15,19 @@ public class Main {
     public static void main(String[] args) {
         String file = "distributionSample/17PR.txt";
 
-        List<Double> dataList = new ArrayList<>(30000);
-        try (Scanner scanner = new Scanner(new File(file))) {
-            while (scanner.hasNextDouble() && dataList.size() < 30000) {
-                double value = scanner.nextDouble();
-                dataList.add(value);
-            }
-        } catch (FileNotFoundException e) {
+        double[] data;
+        try {
+            data = TextSampleReader.builder().limit(30000).build().read(Path.of(file)).toArray();
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
 
-        Sample sample = new Sample(dataList);
+        Sample sample = Sample.wrap(data);
 
-        StatAnalyzer statAnalyzer = StatAnalyzer.builder().build();
-
-        AnalysisResult analysisResult = statAnalyzer.analyze(dataList);
+        AnalysisResult analysisResult;
+        try (StatAnalyzer statAnalyzer = StatAnalyzer.builder().build()) {
+            analysisResult = statAnalyzer.analyze(sample.getValues());
+        }
 
         PgCompositeDistribution compositeDistribution = analysisResult.compositeDistribution;
 
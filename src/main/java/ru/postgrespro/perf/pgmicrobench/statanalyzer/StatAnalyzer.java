@@ -4,8 +4,17 @@ import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.HdrHistogram.Histogram;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.*;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.TrimmedHarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.HistogramSamples;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics.AnalysisMetrics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics.IMetricsListener;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.density.QuantileRespectfulDensityHistogramBuilder;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.multimodality.LowlandModalityDetector;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.multimodality.ModalityData;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.multimodality.RangedMode;
@@ -15,19 +24,29 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Application class.
+ * Analyzer owns executor of its {@code executionMode} unless external {@code pool} is given,
+ * so it should be closed when it is no longer needed.
  */
 @Builder
 @AllArgsConstructor(access = AccessLevel.PROTECTED)
-public class StatAnalyzer {
+public class StatAnalyzer implements AutoCloseable {
     private static final Double TEST_SIZE = 0.5;
+    private static final Comparator<FittedDistribution> FITTED_ORDER =
+            Comparator.comparingDouble(FittedDistribution::getPValue).reversed();
 
     @Builder.Default
     private final List<PgSimpleDistribution> findInDistributions = Stream.of(
@@ -36,8 +55,12 @@ public class StatAnalyzer {
                     new PgWeibullDistribution(1, 1),
                     new PgFrechetDistribution(5, 1))
             .collect(Collectors.toUnmodifiableList());
+    /**
+     * Detector of modes, {@code null} for default one which evaluates quantiles of histogram bins
+     * in parallel if executor of analyzer is fork-join pool.
+     */
     @Builder.Default
-    private final LowlandModalityDetector modeDetector = new LowlandModalityDetector(0.5, 0.01, false);
+    private final LowlandModalityDetector modeDetector = null;
     @Builder.Default
     private final IDistributionTest distributionTest = new CramerVonMises();
     @Builder.Default
@@ -53,7 +76,30 @@ public class StatAnalyzer {
     @Builder.Default
     private final Random random = new Random();
     @Builder.Default
-    private final ExecutorService pool = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final int histogramSampleSize = 100_000;
+    @Builder.Default
+    private final IMetricsListener metricsListener = null;
+    /**
+     * Threads of executor created by analyzer on first analysis and shut down on {@link #close()}.
+     * Ignored if {@code pool} is set.
+     */
+    @Builder.Default
+    private final ExecutionMode executionMode = ExecutionMode.FORK_JOIN;
+    /**
+     * External executor of analysis tasks, e.g. shared by many analyzers, it is not shut down on {@link #close()}.
+     */
+    @Builder.Default
+    private final Executor pool = null;
+    /**
+     * Maximal number of samples of {@link #analyzeAll} analyzed at once, bounds memory of batch.
+     */
+    @Builder.Default
+    private final int maxConcurrentSamples = Runtime.getRuntime().availableProcessors();
+
+    private final AtomicReference<Executor> ownedExecutor = new AtomicReference<>();
+    private final AtomicReference<LowlandModalityDetector> defaultModeDetector = new AtomicReference<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicInteger runningAnalyses = new AtomicInteger();
 
     /**
      * Creates a composite distribution from a list of mode reports.
@@ -75,9 +121,9 @@ public class StatAnalyzer {
     }
 
     private static Sample findModeValues(Sample sample, RangedMode mode) {
-        return new Sample(sample.getValues().stream()
+        return Sample.wrap(Arrays.stream(sample.getValueArray())
                 .filter((x) -> x >= mode.getLeft() && x <= mode.getRight())
-                .collect(Collectors.toList()));
+                .toArray());
     }
 
     /**
@@ -88,35 +134,177 @@ public class StatAnalyzer {
      * @return an AnalysisResult containing the results of the analysis
      */
     public AnalysisResult analyze(List<Double> values) {
-        if (useJittering) {
-            Jittering jit = new Jittering();
-            values = jit.jitter(values, random);
+        return await(analyzeAsync(values));
+    }
+
+    /**
+     * Analyzes values like {@link #analyze(List)} without blocking calling thread.
+     * Analysis is graph of tasks on executor of analyzer, none of which waits for another one,
+     * so any number of analyses share executor of any size without starving it.
+     *
+     * @param values a list of latency values to analyze
+     * @return future of AnalysisResult
+     */
+    public CompletableFuture<AnalysisResult> analyzeAsync(List<Double> values) {
+        return analyzeAsync(values, random);
+    }
+
+    /**
+     * Analyzes values recorded in the given histogram without raw samples.
+     *
+     * @param histogram a histogram of latency values to analyze
+     * @return an AnalysisResult containing the results of the analysis
+     * @see #analyze(Histogram, double)
+     */
+    public AnalysisResult analyze(Histogram histogram) {
+        return analyze(histogram, 1);
+    }
+
+    /**
+     * Analyzes values recorded in the given histogram without raw samples.
+     * Modes are detected on histogram buckets weighted by their counts, distributions
+     * are fitted to sample of at most {@code histogramSampleSize} values reproducing
+     * histogram quantiles, so memory is bounded regardless of recorded count.
+     *
+     * @param histogram a histogram of latency values to analyze, it is copied before analysis
+     * @param unit      divisor of histogram values, e.g. {@code 1e6} for nanosecond histogram analyzed in milliseconds
+     * @return an AnalysisResult containing the results of the analysis, in units of {@code unit}
+     * @throws IllegalArgumentException if histogram is empty or unit is not positive
+     */
+    public AnalysisResult analyze(Histogram histogram, double unit) {
+        AnalysisMetrics metrics = new AnalysisMetrics(metricsListener);
+        Histogram snapshot = histogram.copy();
+
+        return await(track(() -> metrics.measureAsync("analyze", () -> CompletableFuture.supplyAsync(() -> {
+            WeightedSample buckets = metrics.measure("histogramBuckets",
+                    () -> HistogramSamples.toWeightedSample(snapshot, unit));
+            int size = (int) Math.min(snapshot.getTotalCount(), histogramSampleSize);
+            Sample sample = metrics.measure("histogramSample",
+                    () -> Sample.wrap(HistogramSamples.toQuantileValues(snapshot, size, unit)));
+
+            return analyzeAsync(buckets, sample, metrics, random);
+        }, executor()).thenCompose(result -> result))));
+    }
+
+    /**
+     * Analyzes many samples, e.g. all benchmark series of one build, on shared executor of analyzer.
+     * Work of all samples is single queue of tasks: preparation of sample, every detected mode
+     * and fit of every candidate distribution to it. No task waits for another one, so batch
+     * cannot starve executor of any size and its throughput scales with its threads.
+     * At most {@code maxConcurrentSamples} samples are analyzed at once.
+     * Every sample uses its own random generator seeded from {@code random} in iteration order of map,
+     * so results do not depend on order of completion.
+     *
+     * @param samples latency values by name of series
+     * @return results by name of series, in iteration order of {@code samples}
+     * @throws java.util.concurrent.CompletionException if analysis of some sample fails,
+     *                                                  no new samples are started after failure
+     */
+    public Map<String, AnalysisResult> analyzeAll(Map<String, List<Double>> samples) {
+        return analyzeAll(samples, (name, result) -> {
+        });
+    }
+
+    /**
+     * Analyzes many samples and passes every result to consumer as soon as it is ready,
+     * see {@link #analyzeAll(Map)}. Consumer is called from threads of executor, one call at a time.
+     *
+     * @param samples  latency values by name of series
+     * @param consumer receiver of name and result of every analyzed series, in order of completion
+     * @return results by name of series, in iteration order of {@code samples}
+     * @throws java.util.concurrent.CompletionException if analysis of some sample or consumer fails
+     *                                                  or analyzer is closed during batch
+     */
+    public Map<String, AnalysisResult> analyzeAll(Map<String, List<Double>> samples,
+                                                  BiConsumer<String, AnalysisResult> consumer) {
+        Map<String, AnalysisResult> completed = new BatchAnalysis(samples, consumer).run().join();
+
+        Map<String, AnalysisResult> results = new LinkedHashMap<>();
+        for (String name : samples.keySet()) {
+            results.put(name, completed.get(name));
         }
+        return results;
+    }
 
-        WeightedSample sample = WeightedSample.evenWeightedSample(values);
+    private CompletableFuture<AnalysisResult> analyzeAsync(List<Double> values, Random random) {
+        AnalysisMetrics metrics = new AnalysisMetrics(metricsListener);
 
-        ModalityData modalityData = findModes(sample);
+        return track(() -> metrics.measureAsync("analyze", () -> CompletableFuture.supplyAsync(() -> {
+            List<Double> analyzedValues = values;
+            if (useJittering) {
+                analyzedValues = metrics.measure("jittering", () -> new Jittering().jitter(values, random));
+            }
 
-        ParamTestSample paramTestSample = splitParamsTest(sample);
+            WeightedSample sample = WeightedSample.evenWeightedSample(analyzedValues);
+
+            return analyzeAsync(sample, sample, metrics, random);
+        }, executor()).thenCompose(result -> result)));
+    }
 
-        List<ModeReport> modeReports = getModeReports(paramTestSample, modalityData);
+    /**
+     * Detects modes on one sample and fits distributions to another one.
+     * Must be called from task of executor, following stages are scheduled on it.
+     *
+     * @param modeSample sample for mode detection
+     * @param sample     sample to split into parameter and test samples
+     * @param metrics    recorder of stage metrics, attached to result
+     * @param random     generator of split into parameter and test samples
+     * @return future of AnalysisResult
+     */
+    private CompletableFuture<AnalysisResult> analyzeAsync(WeightedSample modeSample, Sample sample,
+                                                           AnalysisMetrics metrics, Random random) {
+        ModalityData modalityData = metrics.measure("findModes", () -> findModes(modeSample));
 
-        PgCompositeDistribution compositeDistribution = getCompositeDistribution(modeReports, values.size());
+        ParamTestSample paramTestSample = metrics.measure("splitParamsTest", () -> splitParamsTest(sample, random));
 
-        double resultPValue = distributionTest.test(paramTestSample.getTestSample(), compositeDistribution);
+        return metrics.measureAsync("modeReports",
+                        () -> getModeReportsAsync(paramTestSample, modalityData, metrics, "modeReports"))
+                .thenComposeAsync(modeReports -> completeAnalysis(paramTestSample, modalityData, modeReports,
+                        sample.size(), metrics, random), executor());
+    }
 
+    /**
+     * Tests composite distribution of mode reports and optionally refines it.
+     *
+     * @param paramTestSample sample split into parameter and test samples
+     * @param modalityData    detected modes
+     * @param modeReports     reports of detected modes
+     * @param sampleSize      size of analyzed sample
+     * @param metrics         recorder of stage metrics, attached to result
+     * @param random          generator of split of recursive mode detection
+     * @return future of AnalysisResult
+     */
+    private CompletableFuture<AnalysisResult> completeAnalysis(ParamTestSample paramTestSample,
+                                                               ModalityData modalityData,
+                                                               List<ModeReport> modeReports, int sampleSize,
+                                                               AnalysisMetrics metrics, Random random) {
+        PgCompositeDistribution compositeDistribution = getCompositeDistribution(modeReports, sampleSize);
+
+        double resultPValue = metrics.measure("test",
+                () -> distributionTest.test(paramTestSample.getTestContext(), compositeDistribution));
+
+        PgCompositeDistribution finalDistribution = compositeDistribution;
         if (optimizeFinalSolution) {
-            EstimatedParameters estimatedParameters = finalParameterEstimator
-                    .fit(paramTestSample.getParametersSample(), compositeDistribution);
+            EstimatedParameters estimatedParameters = metrics.measure("finalFit", () -> finalParameterEstimator
+                    .fit(paramTestSample.getParametersSample(), compositeDistribution));
 
-            compositeDistribution = (PgCompositeDistribution) estimatedParameters.getDistribution();
+            finalDistribution = (PgCompositeDistribution) estimatedParameters.getDistribution();
         }
 
+        CompletableFuture<AnalysisResult> result;
         if (!recursiveModeDetection) {
-            return new AnalysisResult(modalityData.getModality(), resultPValue, modeReports, compositeDistribution);
+            result = CompletableFuture.completedFuture(
+                    new AnalysisResult(modalityData.getModality(), resultPValue, modeReports, finalDistribution));
+        } else {
+            PgCompositeDistribution distribution = finalDistribution;
+            result = metrics.measureAsync("recursiveModeDetection", () -> recursiveModeDetection(paramTestSample,
+                    distribution, modalityData, modeReports, sampleSize, metrics, random));
         }
 
-        return recursiveModeDetection(paramTestSample, compositeDistribution, modalityData, modeReports, values.size());
+        return result.thenApply(analysisResult -> {
+            analysisResult.setMetrics(metrics);
+            return analysisResult;
+        });
     }
 
     /**
@@ -128,11 +316,16 @@ public class StatAnalyzer {
      * @param initialModalityData initial modality data detected before recursion
      * @param modeReports         list to store mode reports found during analysis
      * @param originalSampleSize  original size of sample before filtering
-     * @return {@code AnalysisResult} containing updated modality data, mode reports and refined composite distribution
+     * @param metrics             recorder of stage metrics
+     * @param random              generator of split into parameter and test samples
+     * @return future of {@code AnalysisResult} containing updated modality data, mode reports and refined composite distribution
      */
-    private AnalysisResult recursiveModeDetection(ParamTestSample paramTestSample, PgCompositeDistribution initialDistribution,
-                                                  ModalityData initialModalityData, List<ModeReport> modeReports,
-                                                  int originalSampleSize) {
+    private CompletableFuture<AnalysisResult> recursiveModeDetection(ParamTestSample paramTestSample,
+                                                                     PgCompositeDistribution initialDistribution,
+                                                                     ModalityData initialModalityData,
+                                                                     List<ModeReport> modeReports,
+                                                                     int originalSampleSize, AnalysisMetrics metrics,
+                                                                     Random random) {
         final double MODE_SIZE_THRESHOLD = 0.07;
 
         Sample sample = paramTestSample.getParametersSample();
@@ -140,43 +333,45 @@ public class StatAnalyzer {
         List<Double> filteredSampleData = RecursiveLowlandModalityDetector.filterBinsAbovePdf(sample, initialDistribution::pdf);
         WeightedSample filteredSample = WeightedSample.evenWeightedSample(filteredSampleData);
 
-        ParamTestSample filteredParamTestSample = splitParamsTest(filteredSample);
+        ParamTestSample filteredParamTestSample = splitParamsTest(filteredSample, random);
 
         ModalityData newModalityData = findModes(filteredSample);
-        List<ModeReport> newModeReports = getModeReports(filteredParamTestSample, newModalityData);
 
-        newModeReports.removeIf(mode -> mode.getSize() < originalSampleSize * MODE_SIZE_THRESHOLD);
+        return getModeReportsAsync(filteredParamTestSample, newModalityData,
+                metrics, "recursiveModeDetection/modeReports").thenApplyAsync(newModeReports -> {
+            newModeReports.removeIf(mode -> mode.getSize() < originalSampleSize * MODE_SIZE_THRESHOLD);
 
 
-        if (newModeReports.isEmpty()) {
-            double resultPvalue = distributionTest.test(paramTestSample.getTestSample(), initialDistribution);
+            if (newModeReports.isEmpty()) {
+                double resultPvalue = distributionTest.test(paramTestSample.getTestContext(), initialDistribution);
 
-            return new AnalysisResult(initialModalityData.getModality(), resultPvalue, modeReports, initialDistribution);
-        }
+                return new AnalysisResult(initialModalityData.getModality(), resultPvalue, modeReports, initialDistribution);
+            }
 
-        modeReports.addAll(newModeReports);
+            modeReports.addAll(newModeReports);
 
-        PgCompositeDistribution newCompositeDistribution = getCompositeDistribution(newModeReports, filteredSampleData.size());
+            PgCompositeDistribution newCompositeDistribution = getCompositeDistribution(newModeReports, filteredSampleData.size());
 
-        if (optimizeFinalSolution) {
-            EstimatedParameters optimizedParameters = finalParameterEstimator.fit(filteredSample, newCompositeDistribution);
-            newCompositeDistribution = (PgCompositeDistribution) optimizedParameters.getDistribution();
-        }
+            if (optimizeFinalSolution) {
+                EstimatedParameters optimizedParameters = finalParameterEstimator.fit(filteredSample, newCompositeDistribution);
+                newCompositeDistribution = (PgCompositeDistribution) optimizedParameters.getDistribution();
+            }
 
-        PgCompositeDistribution combinedDistribution = combinePdfWithScaling(
-                initialDistribution, newCompositeDistribution,
-                filteredSampleData.size(), originalSampleSize
-        );
+            PgCompositeDistribution combinedDistribution = combinePdfWithScaling(
+                    initialDistribution, newCompositeDistribution,
+                    filteredSampleData.size(), originalSampleSize
+            );
 
-        EstimatedParameters optimizedParameters = finalParameterEstimator.fit(sample, combinedDistribution);
-        combinedDistribution = (PgCompositeDistribution) optimizedParameters.getDistribution();
+            EstimatedParameters optimizedParameters = finalParameterEstimator.fit(sample, combinedDistribution);
+            combinedDistribution = (PgCompositeDistribution) optimizedParameters.getDistribution();
 
-        double resultPvalue = distributionTest.test(paramTestSample.getTestSample(), combinedDistribution);
+            double resultPvalue = distributionTest.test(paramTestSample.getTestContext(), combinedDistribution);
 
-        return new AnalysisResult(
-                modeReports.size(), resultPvalue,
-                modeReports, combinedDistribution
-        );
+            return new AnalysisResult(
+                    modeReports.size(), resultPvalue,
+                    modeReports, combinedDistribution
+            );
+        }, executor());
     }
 
     /**
@@ -213,16 +408,24 @@ public class StatAnalyzer {
     }
 
     /**
-     * Generates mode reports for each detected mode in parallel.
+     * Generates mode reports for each detected mode in parallel, every mode
+     * and every fit of candidate distribution are separate tasks.
      *
      * @param modalityData the modality data containing detected modes
-     * @return a list of ModeReport objects for each ranged mode
+     * @param metrics      recorder of stage metrics
+     * @param stage        name of stage reports are created in
+     * @return future of list of ModeReport objects for each ranged mode
      */
-    private List<ModeReport> getModeReports(ParamTestSample sample, ModalityData modalityData) {
-        return modalityData.getModes().stream()
-                .map(mode -> CompletableFuture.supplyAsync(() -> getModeReport(sample, mode), pool))
-                .map(CompletableFuture::join)
-                .collect(Collectors.toList());
+    private CompletableFuture<List<ModeReport>> getModeReportsAsync(ParamTestSample sample, ModalityData modalityData,
+                                                                    AnalysisMetrics metrics, String stage) {
+        List<RangedMode> modes = modalityData.getModes();
+        List<CompletableFuture<ModeReport>> reports = new ArrayList<>(modes.size());
+        for (int i = 0; i < modes.size(); i++) {
+            String modeStage = stage + "/mode[" + i + "]";
+            RangedMode mode = modes.get(i);
+            reports.add(metrics.measureAsync(modeStage, () -> getModeReportAsync(sample, mode, metrics, modeStage)));
+        }
+        return allOf(reports);
     }
 
     /**
@@ -232,7 +435,24 @@ public class StatAnalyzer {
      * @return a ModalityData object containing the detected modes
      */
     public ModalityData findModes(WeightedSample sample) {
-        return modeDetector.detectModes(sample);
+        return modeDetector().detectModes(sample);
+    }
+
+    private LowlandModalityDetector modeDetector() {
+        if (modeDetector != null) {
+            return modeDetector;
+        }
+        LowlandModalityDetector detector = defaultModeDetector.get();
+        if (detector == null) {
+            Executor executor = executor();
+            ForkJoinPool forkJoinPool = executor instanceof ForkJoinPool ? (ForkJoinPool) executor : null;
+            detector = new LowlandModalityDetector(0.5, 0.01, false, new QuantileRespectfulDensityHistogramBuilder(
+                    TrimmedHarrellDavisQuantileEstimator.getInstance(), forkJoinPool));
+            if (!defaultModeDetector.compareAndSet(null, detector)) {
+                detector = defaultModeDetector.get();
+            }
+        }
+        return detector;
     }
 
     /**
@@ -242,18 +462,22 @@ public class StatAnalyzer {
      * @return a Pair containing the parameter sample and test sample
      */
     public ParamTestSample splitParamsTest(Sample sample) {
-        List<Double> shuffled = new ArrayList<>(sample.getValues());
-        Collections.shuffle(shuffled, random);
-        int testSize = (int) (shuffled.size() * TEST_SIZE);
-
-        Sample paramsSample = new Sample(
-                IntStream.range(0, testSize)
-                        .mapToObj(shuffled::get)
-                        .collect(Collectors.toList()));
-        Sample testSample = new Sample(
-                IntStream.range(testSize, shuffled.size())
-                        .mapToObj(shuffled::get)
-                        .collect(Collectors.toList()));
+        return splitParamsTest(sample, random);
+    }
+
+    private static ParamTestSample splitParamsTest(Sample sample, Random random) {
+        double[] shuffled = sample.getValueArray().clone();
+        // same permutation as Collections.shuffle(list, random)
+        for (int i = shuffled.length; i > 1; i--) {
+            int j = random.nextInt(i);
+            double tmp = shuffled[i - 1];
+            shuffled[i - 1] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+        int testSize = (int) (shuffled.length * TEST_SIZE);
+
+        Sample paramsSample = Sample.wrap(Arrays.copyOfRange(shuffled, 0, testSize));
+        Sample testSample = Sample.wrap(Arrays.copyOfRange(shuffled, testSize, shuffled.length));
 
         return new ParamTestSample(paramsSample, testSample);
     }
@@ -266,14 +490,20 @@ public class StatAnalyzer {
      * @return a ModeReport containing the results for the mode
      */
     public ModeReport getModeReport(ParamTestSample sample, RangedMode mode) {
-        Sample modeParamSample = findModeValues(sample.getParametersSample(), mode);
-        Sample modeTestSample = findModeValues(sample.getTestSample(), mode);
-
-        List<FittedDistribution> fittedDistributions = fitDistribution(modeParamSample, modeTestSample);
-        FittedDistribution bestDistribution = fittedDistributions.get(0);
+        return await(track(() -> getModeReportAsync(sample, mode, new AnalysisMetrics(), "modeReport")));
+    }
 
-        return new ModeReport(modeTestSample.size() + modeTestSample.size(), mode.getLocation(),
-                mode.getLeft(), mode.getRight(), bestDistribution, fittedDistributions);
+    private CompletableFuture<ModeReport> getModeReportAsync(ParamTestSample sample, RangedMode mode,
+                                                             AnalysisMetrics metrics, String stage) {
+        return CompletableFuture.supplyAsync(() -> new ParamTestSample(
+                        findModeValues(sample.getParametersSample(), mode),
+                        findModeValues(sample.getTestSample(), mode)), executor())
+                .thenCompose(modeSample -> fitDistributionAsync(modeSample, metrics, stage)
+                        .thenApply(fitted -> {
+                            Sample modeTestSample = modeSample.getTestSample();
+                            return new ModeReport(modeTestSample.size() + modeTestSample.size(), mode.getLocation(),
+                                    mode.getLeft(), mode.getRight(), fitted.get(0), fitted);
+                        }));
     }
 
     /**
@@ -285,30 +515,229 @@ public class StatAnalyzer {
      * distributions and their p-values
      */
     public List<FittedDistribution> fitDistribution(Sample parametersSample, Sample testSample) {
-        return findInDistributions.stream()
-                .map(distribution -> CompletableFuture.supplyAsync(() -> {
-                    EstimatedParameters estimatedParameters;
+        return await(track(() -> fitDistributionAsync(new ParamTestSample(parametersSample, testSample),
+                new AnalysisMetrics(), "fitDistribution")));
+    }
+
+    /**
+     * Fits every candidate distribution in separate task.
+     *
+     * @return future of fitted distributions sorted by descending p-value
+     */
+    private CompletableFuture<List<FittedDistribution>> fitDistributionAsync(ParamTestSample sample,
+                                                                             AnalysisMetrics metrics, String stage) {
+        List<CompletableFuture<FittedDistribution>> fits = new ArrayList<>(findInDistributions.size());
+        for (PgSimpleDistribution distribution : findInDistributions) {
+            fits.add(CompletableFuture.supplyAsync(() -> metrics.measure(
+                    stage + "/fit[" + distribution.getType() + "]",
+                    () -> fitDistribution(distribution, sample.getParametersSample(), sample.getTestContext())), executor()));
+        }
+        return allOf(fits).thenApply(fitted -> {
+            fitted.sort(FITTED_ORDER);
+            return fitted;
+        });
+    }
+
+    private FittedDistribution fitDistribution(PgSimpleDistribution distribution, Sample parametersSample,
+                                               EdfContext testContext) {
+        EstimatedParameters estimatedParameters;
+        try {
+            estimatedParameters = parameterEstimator.fit(parametersSample,
+                    distribution.newDistribution(parametersSample));
+        } catch (Exception e) {
+            return new FittedDistribution(null, Double.NEGATIVE_INFINITY);
+        }
+
+        double pValue = distributionTest.test(testContext, estimatedParameters.getDistribution());
+
+        return new FittedDistribution(
+                estimatedParameters.getDistribution(),
+                pValue);
+    }
+
+    /**
+     * Rejects new analyses and shuts down executor created by analyzer once running analyses complete,
+     * their remaining stages still run on it. External {@code pool} is left running.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed.getAndSet(true)) {
+            return;
+        }
+        if (runningAnalyses.get() == 0) {
+            shutdownOwnedExecutor();
+        }
+    }
+
+    private synchronized void shutdownOwnedExecutor() {
+        Executor executor = ownedExecutor.getAndSet(null);
+        if (executor instanceof ExecutorService) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    /**
+     * Starts analysis counted as running until its future completes, so close doesn't shut down
+     * executor under its stages.
+     *
+     * @throws IllegalStateException if analyzer is closed
+     */
+    private <T> CompletableFuture<T> track(Supplier<CompletableFuture<T>> analysis) {
+        synchronized (this) {
+            if (closed.get()) {
+                throw new IllegalStateException("StatAnalyzer is closed");
+            }
+            runningAnalyses.incrementAndGet();
+        }
+        CompletableFuture<T> future;
+        try {
+            future = analysis.get();
+        } catch (RuntimeException | Error e) {
+            finishAnalysis();
+            throw e;
+        }
+        return future.whenComplete((result, error) -> finishAnalysis());
+    }
+
+    private synchronized void finishAnalysis() {
+        if (runningAnalyses.decrementAndGet() == 0 && closed.get()) {
+            shutdownOwnedExecutor();
+        }
+    }
+
+    /**
+     * Returns executor of analysis tasks, creating own one of {@code executionMode} on first call.
+     *
+     * @throws IllegalStateException if analyzer is closed and no analysis is running
+     */
+    private synchronized Executor executor() {
+        if (closed.get() && runningAnalyses.get() == 0) {
+            throw new IllegalStateException("StatAnalyzer is closed");
+        }
+        if (pool != null) {
+            return pool;
+        }
+        Executor executor = ownedExecutor.get();
+        if (executor == null) {
+            executor = executionMode.newExecutor();
+            ownedExecutor.set(executor);
+        }
+        return executor;
+    }
+
+    /**
+     * Completes with results of all futures in their order, without blocking any thread.
+     */
+    private static <T> CompletableFuture<List<T>> allOf(List<CompletableFuture<T>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> futures.stream()
+                        .map(CompletableFuture::join)
+                        .collect(Collectors.toCollection(ArrayList::new)));
+    }
+
+    /**
+     * Waits for result in calling thread, rethrowing unchecked failure of analysis as is.
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Scheduler of {@link #analyzeAll}, starts next sample whenever one of running samples completes.
+     */
+    private final class BatchAnalysis {
+        private final Iterator<Map.Entry<String, List<Double>>> pending;
+        private final BiConsumer<String, AnalysisResult> consumer;
+        private final Map<String, AnalysisResult> results = new HashMap<>();
+        private final CompletableFuture<Map<String, AnalysisResult>> done = new CompletableFuture<>();
+        private int running;
+        private boolean starting;
+        private Throwable failure;
+
+        BatchAnalysis(Map<String, List<Double>> samples, BiConsumer<String, AnalysisResult> consumer) {
+            this.pending = new ArrayList<>(samples.entrySet()).iterator();
+            this.consumer = consumer;
+        }
+
+        synchronized CompletableFuture<Map<String, AnalysisResult>> run() {
+            startPending();
+            return done;
+        }
+
+        /**
+         * Starts samples up to limit, seeds are taken in order of samples since starts are serialized.
+         * Sample completed while being started, e.g. in calling thread, doesn't start next one
+         * recursively, this loop does.
+         */
+        private void startPending() {
+            if (starting) {
+                return;
+            }
+            starting = true;
+            try {
+                while (failure == null && running < Math.max(1, maxConcurrentSamples) && pending.hasNext()) {
+                    Map.Entry<String, List<Double>> sample = pending.next();
+                    running++;
+                    CompletableFuture<AnalysisResult> analysis;
                     try {
-                        estimatedParameters = parameterEstimator.fit(parametersSample,
-                                distribution.newDistribution(parametersSample));
-                    } catch (Exception e) {
-                        return new FittedDistribution(null, Double.NEGATIVE_INFINITY);
+                        analysis = analyzeAsync(sample.getValue(), new Random(random.nextLong()));
+                    } catch (Throwable e) {
+                        // e.g. analyzer closed by consumer, samples already running still complete
+                        running--;
+                        failure = e;
+                        break;
                     }
+                    analysis.whenComplete((result, error) -> complete(sample.getKey(), result, error));
+                }
+            } finally {
+                starting = false;
+            }
+
+            if (running > 0) {
+                return;
+            }
+            if (failure != null) {
+                done.completeExceptionally(failure);
+            } else {
+                done.complete(results);
+            }
+        }
 
-                    double pValue = distributionTest.test(testSample, estimatedParameters.getDistribution());
-
-                    return new FittedDistribution(
-                            estimatedParameters.getDistribution(),
-                            pValue);
-                }, pool))
-                .map(CompletableFuture::join)
-                .sorted(Comparator.comparingDouble(FittedDistribution::getPValue).reversed())
-                .collect(Collectors.toList());
+        private synchronized void complete(String name, AnalysisResult result, Throwable error) {
+            running--;
+            if (error == null && failure == null) {
+                try {
+                    results.put(name, result);
+                    consumer.accept(name, result);
+                } catch (Throwable e) {
+                    error = e;
+                }
+            }
+            if (error != null && failure == null) {
+                failure = error;
+            }
+            startPending();
+        }
     }
 
     @Data
     public static class ParamTestSample {
         private final Sample parametersSample;
         private final Sample testSample;
+        @Getter(lazy = true)
+        @EqualsAndHashCode.Exclude
+        @ToString.Exclude
+        private final EdfContext testContext = EdfContext.of(testSample);
     }
 }
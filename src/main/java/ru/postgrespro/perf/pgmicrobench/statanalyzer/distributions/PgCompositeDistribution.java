@@ -5,9 +5,9 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.Pair;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
@@ -19,11 +19,16 @@ public class PgCompositeDistribution implements PgDistribution {
     @Getter
     private final List<PgDistribution> distributions;
     @Getter
-    private final List<Double> weights;
-    @Getter
     private final int size;
     private final int paramNumber;
-    
+    private final PgDistribution[] components;
+    private final double[] componentWeights;
+    /**
+     * Scratch array of bulk evaluation, only private instance of evaluator has it.
+     */
+    private double[] buffer;
+
+
     /** Constructor.
      *
      * @param distributions distributions.
@@ -33,27 +38,74 @@ public class PgCompositeDistribution implements PgDistribution {
         if (distributions.isEmpty() || distributions.size() != weights.size()) {
             throw new IllegalArgumentException("Distributions and weights must have the same non-zero size");
         }
-        for (double w : weights) {
-            if (w < 0) {
-                throw new IllegalArgumentException("Negative weight");
-            }
-        }
 
-        double sumWeight = weights.stream().mapToDouble(Double::doubleValue).sum();
-        this.weights = weights.stream().map((x) -> x / sumWeight).collect(Collectors.toList());
         this.distributions = new ArrayList<>(distributions);
         this.size = distributions.size();
         this.paramNumber = this.distributions.stream().mapToInt(PgDistribution::getParamNumber).sum() + size;
+        this.components = this.distributions.toArray(new PgDistribution[0]);
+        this.componentWeights = new double[size];
+        resetWeights(weights.stream().mapToDouble(Double::doubleValue).toArray(), 0);
+    }
+
+    /**
+     * Normalized weights of components.
+     *
+     * @return weights summing to one.
+     */
+    public List<Double> getWeights() {
+        return Arrays.stream(componentWeights).boxed().collect(Collectors.toList());
+    }
+
+    /**
+     * Sets weights of components normalized to unit sum.
+     */
+    private void resetWeights(double[] weights, int offset) {
+        double sumWeight = 0;
+        for (int i = 0; i < size; i++) {
+            if (weights[offset + i] < 0) {
+                throw new IllegalArgumentException("Negative weight");
+            }
+            sumWeight += weights[offset + i];
+        }
+        for (int i = 0; i < size; i++) {
+            componentWeights[i] = weights[offset + i] / sumWeight;
+        }
     }
 
     @Override
     public double pdf(double value) {
-        return weightedResult((dist) -> dist.pdf(value));
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            result += components[i].pdf(value) * componentWeights[i];
+        }
+        return result;
     }
 
     @Override
     public double cdf(double value) {
-        return weightedResult((dist) -> dist.cdf(value));
+        double result = 0;
+        for (int i = 0; i < size; i++) {
+            result += components[i].cdf(value) * componentWeights[i];
+        }
+        return result;
+    }
+
+    @Override
+    public void pdf(double[] values, double[] result) {
+        weightedResult(values, result, PgDistribution::pdf);
+    }
+
+    @Override
+    public void cdf(double[] values, double[] result) {
+        weightedResult(values, result, PgDistribution::cdf);
+    }
+
+    @Override
+    public void logPdf(double[] values, double[] result) {
+        pdf(values, result);
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Math.log(result[i]);
+        }
     }
 
     @Override
@@ -61,7 +113,7 @@ public class PgCompositeDistribution implements PgDistribution {
         ArrayList<Double> values = new ArrayList<>(size);
 
         for (int i = 0; i < this.size; i++) {
-            values.addAll(distributions.get(i).generate((int) (size * weights.get(i)), random).getValues());
+            values.addAll(distributions.get(i).generate((int) (size * componentWeights[i]), random).getValues());
         }
 
         return new Sample(values);
@@ -102,6 +154,32 @@ public class PgCompositeDistribution implements PgDistribution {
         return new PgCompositeDistribution(newDist, newWeights);
     }
 
+    /**
+     * Creates evaluator reusing evaluators of components and single private composite instance,
+     * parameters are laid out as in {@link #getParamArray()}.
+     */
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgDistributionEvaluator[] evaluators = new PgDistributionEvaluator[size];
+        for (int i = 0; i < size; i++) {
+            evaluators[i] = components[i].newEvaluator();
+        }
+        PgCompositeDistribution distribution = new PgCompositeDistribution(distributions, getWeights());
+        distribution.buffer = new double[0];
+
+        return (params, offset) -> {
+            int cur = offset;
+            for (int i = 0; i < size; i++) {
+                PgDistribution component = evaluators[i].setParams(params, cur);
+                distribution.components[i] = component;
+                distribution.distributions.set(i, component);
+                cur += component.getParamNumber();
+            }
+            distribution.resetWeights(params, cur);
+            return distribution;
+        };
+    }
+
     @Override
     public PgCompositeDistribution newDistribution(Sample sample) {
         throw new RuntimeException("Not implemented");
@@ -118,7 +196,7 @@ public class PgCompositeDistribution implements PgDistribution {
             }
         }
 
-        for (double w : weights) {
+        for (double w : componentWeights) {
             paramArray[cur++] = w;
         }
 
@@ -147,20 +225,39 @@ public class PgCompositeDistribution implements PgDistribution {
         return new Pair<>(lower, upper);
     }
 
-    private double weightedResult(Function<PgDistribution, Double> function) {
-        double result = 0;
+    /**
+     * Evaluates components one by one over whole array and accumulates weighted results,
+     * so every component runs its own bulk loop.
+     */
+    private void weightedResult(double[] values, double[] result, BulkFunction function) {
+        double[] input = values == result ? values.clone() : values;
+        double[] buffer = this.buffer;
+        if (buffer == null || buffer.length < values.length) {
+            buffer = new double[values.length];
+            if (this.buffer != null) {
+                this.buffer = buffer;
+            }
+        }
+        Arrays.fill(result, 0, values.length, 0);
 
-        for (int i = 0; i < size; i++) {
-            result += function.apply(distributions.get(i)) * weights.get(i);
+        for (int c = 0; c < size; c++) {
+            function.apply(components[c], input, buffer);
+            double weight = componentWeights[c];
+            for (int i = 0; i < values.length; i++) {
+                result[i] += buffer[i] * weight;
+            }
         }
+    }
 
-        return result;
+    @FunctionalInterface
+    private interface BulkFunction {
+        void apply(PgDistribution distribution, double[] values, double[] result);
     }
 
     @Override
     public String toString() {
         List<String> list = IntStream.range(0, size)
-                .mapToObj(i -> String.format("%.2f", weights.get(i)) + " * " + distributions.get(i))
+                .mapToObj(i -> String.format("%.2f", componentWeights[i]) + " * " + distributions.get(i))
                 .collect(Collectors.toList());
         return "CompositeDistribution(" + String.join(" + ", list) + ")";
     }
@@ -0,0 +1,41 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions;
+
+import java.util.Arrays;
+
+/**
+ * Simple distribution with analytic derivatives of log-density with respect to parameters,
+ * parameters are ordered as in {@link #getParamArray()}. Allows gradient-based maximum likelihood fitting.
+ */
+public interface PgDifferentiableDistribution extends PgSimpleDistribution {
+    /**
+     * Computes gradient of {@link #logPdf(double)} with respect to parameters.
+     *
+     * @param value    value to evaluate.
+     * @param gradient receives partial derivatives, length must be {@link #getParamNumber()}.
+     */
+    void logPdfGradient(double value, double[] gradient);
+
+    /**
+     * Computes log-likelihood of values and its gradient with respect to parameters.
+     *
+     * @param values   observed values.
+     * @param gradient receives partial derivatives of log-likelihood, length must be {@link #getParamNumber()}.
+     * @return sum of {@link #logPdf(double)} over values.
+     */
+    default double logLikelihood(double[] values, double[] gradient) {
+        double[] pointGradient = new double[gradient.length];
+        Arrays.fill(gradient, 0);
+        double sum = 0;
+        for (double value : values) {
+            sum += logPdf(value);
+            logPdfGradient(value, pointGradient);
+            for (int j = 0; j < gradient.length; j++) {
+                gradient[j] += pointGradient[j];
+            }
+        }
+        return sum;
+    }
+
+    @Override
+    PgDifferentiableDistribution newDistribution(double[] params);
+}
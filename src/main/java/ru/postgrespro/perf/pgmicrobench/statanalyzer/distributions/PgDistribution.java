@@ -3,6 +3,7 @@ package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.Pair;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 
+import java.util.Arrays;
 import java.util.Random;
 
 /**
@@ -13,6 +14,54 @@ public interface PgDistribution {
 
     double cdf(double value);
 
+    /**
+     * Natural logarithm of probability density, implementations compute it directly
+     * so that it stays finite where density underflows.
+     *
+     * @param value value to evaluate.
+     * @return logarithm of density.
+     */
+    default double logPdf(double value) {
+        return Math.log(pdf(value));
+    }
+
+    /**
+     * Computes probability density of every value in single loop, which avoids per-value dispatch
+     * and lets implementations hoist parameter-only expressions out of the loop.
+     *
+     * @param values values to evaluate.
+     * @param result receives densities, must be at least as long as values, may be the same array.
+     */
+    default void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            result[i] = pdf(values[i]);
+        }
+    }
+
+    /**
+     * Computes cumulative probability of every value in single loop.
+     *
+     * @param values values to evaluate.
+     * @param result receives probabilities, must be at least as long as values, may be the same array.
+     */
+    default void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            result[i] = cdf(values[i]);
+        }
+    }
+
+    /**
+     * Computes logarithm of probability density of every value in single loop.
+     *
+     * @param values values to evaluate.
+     * @param result receives logarithms of densities, must be at least as long as values, may be the same array.
+     */
+    default void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            result[i] = logPdf(values[i]);
+        }
+    }
+
     Sample generate(int size, Random random);
 
     PgDistributionType getType();
@@ -23,6 +72,17 @@ public interface PgDistribution {
 
     PgDistribution newDistribution(Sample sample);
 
+    /**
+     * Creates evaluator of distributions of same family and structure as this one.
+     * Default evaluator creates new distribution on every call, implementations
+     * reuse single private instance.
+     *
+     * @return new evaluator.
+     */
+    default PgDistributionEvaluator newEvaluator() {
+        return (params, offset) -> newDistribution(Arrays.copyOfRange(params, offset, offset + getParamNumber()));
+    }
+
     double[] getParamArray();
 
     Pair<double[]> bounds();
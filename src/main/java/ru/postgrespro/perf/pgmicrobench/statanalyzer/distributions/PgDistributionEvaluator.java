@@ -0,0 +1,19 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions;
+
+/**
+ * Reusable distribution of fixed family with parameters replaced in place, so that objective function
+ * of optimizer does not create distribution for every evaluated point. Created by {@link PgDistribution#newEvaluator()},
+ * not thread-safe.
+ */
+@FunctionalInterface
+public interface PgDistributionEvaluator {
+    /**
+     * Sets parameters of distribution.
+     *
+     * @param params array containing parameters in order of {@link PgDistribution#getParamArray()}.
+     * @param offset index of first parameter in array.
+     * @return distribution with given parameters, valid only until next call and must not be kept.
+     * @throws IllegalArgumentException if parameters are invalid.
+     */
+    PgDistribution setParams(double[] params, int offset);
+}
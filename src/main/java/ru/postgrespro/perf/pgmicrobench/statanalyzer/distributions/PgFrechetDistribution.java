@@ -9,14 +9,30 @@ import java.util.Random;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
-public class PgFrechetDistribution implements PgSimpleDistribution {
+/**
+ * Frechet distribution with shape and scale parameters.
+ * Inverses and logarithms of parameters are computed once per parameters,
+ * so that density costs single logarithm and two exponents.
+ */
+public class PgFrechetDistribution implements PgDifferentiableDistribution {
     private static final double ZERO = 1e-6;
 
-    private final double shape;
-    private final double scale;
-    private final double ratio;
+    private double shape;
+    private double scale;
+    private double ratio;
+    private double invShape;
+    private double invScale;
+    private double logScale;
+    private double logRatio;
 
     public PgFrechetDistribution(double shape, double scale) {
+        reset(shape, scale);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double shape, double scale) {
         if (shape < ZERO || scale < ZERO) {
             throw new IllegalArgumentException("Incorrect parameters");
         }
@@ -24,6 +40,10 @@ public class PgFrechetDistribution implements PgSimpleDistribution {
         this.shape = shape;
         this.scale = scale;
         this.ratio = shape / scale;
+        this.invShape = 1 / shape;
+        this.invScale = 1 / scale;
+        this.logScale = Math.log(scale);
+        this.logRatio = Math.log(ratio);
     }
 
     @Override
@@ -46,7 +66,7 @@ public class PgFrechetDistribution implements PgSimpleDistribution {
 
     @Override
     public double median() {
-        return scale / Math.pow(Math.log(2), 1.0 / shape);
+        return scale / Math.pow(Math.log(2), invShape);
     }
 
     @Override
@@ -80,21 +100,103 @@ public class PgFrechetDistribution implements PgSimpleDistribution {
 
     @Override
     public double standardDeviation() {
-        return PgSimpleDistribution.super.standardDeviation();
+        return PgDifferentiableDistribution.super.standardDeviation();
+    }
+
+    @Override
+    public final double pdf(double value) {
+        if (value <= 0) {
+            return 0;
+        }
+        double logV = Math.log(value) - logScale;
+        return Math.exp(logRatio - (shape + 1) * logV - Math.exp(-shape * logV));
+    }
+
+    @Override
+    public final double cdf(double value) {
+        if (value <= 0) {
+            return 0;
+        }
+        return Math.exp(-Math.pow(value * invScale, -shape));
+    }
+
+    @Override
+    public final double logPdf(double value) {
+        if (value <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double logV = Math.log(value) - logScale;
+        return logRatio - (shape + 1) * logV - Math.exp(-shape * logV);
     }
 
     @Override
-    public double pdf(double value) {
-        double v = value / scale;
-        double x = Math.pow(v, -shape);
-        return ratio * (x / v) * Math.exp(-x);
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = 0;
+            } else {
+                double logV = Math.log(value) - logScale;
+                result[i] = Math.exp(logRatio - (shape + 1) * logV - Math.exp(-shape * logV));
+            }
+        }
     }
 
     @Override
-    public double cdf(double value) {
-        double v = value / scale;
-        double x = Math.pow(v, -shape);
-        return Math.exp(-x);
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            result[i] = value <= 0 ? 0 : Math.exp(-Math.pow(value * invScale, -shape));
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = Double.NEGATIVE_INFINITY;
+            } else {
+                double logV = Math.log(value) - logScale;
+                result[i] = logRatio - (shape + 1) * logV - Math.exp(-shape * logV);
+            }
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double value, double[] gradient) {
+        if (value <= 0) {
+            gradient[0] = 0;
+            gradient[1] = 0;
+            return;
+        }
+        double logV = Math.log(value) - logScale;
+        double x = Math.exp(-shape * logV);
+        gradient[0] = invShape - logV + x * logV;
+        gradient[1] = shape * (1 - x) * invScale;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumLog = 0;
+        double sumPow = 0;
+        double sumPowLog = 0;
+        for (double value : values) {
+            if (value <= 0) {
+                gradient[0] = 0;
+                gradient[1] = 0;
+                return Double.NEGATIVE_INFINITY;
+            }
+            double logV = Math.log(value) - logScale;
+            double x = Math.exp(-shape * logV);
+            sumLog += logV;
+            sumPow += x;
+            sumPowLog += x * logV;
+        }
+        int n = values.length;
+        gradient[0] = n * invShape - sumLog + sumPowLog;
+        gradient[1] = shape * (n - sumPow) * invScale;
+        return n * logRatio - (shape + 1) * sumLog - sumPow;
     }
 
     @Override
@@ -102,7 +204,7 @@ public class PgFrechetDistribution implements PgSimpleDistribution {
         return new Sample(IntStream.range(0, size)
                 .mapToObj(i -> {
                     double u = random.nextDouble();
-                    return scale * Math.pow(Math.log(1 / u), -1.0 / shape);
+                    return scale * Math.pow(Math.log(1 / u), -invShape);
                 }).collect(Collectors.toList()));
     }
 
@@ -117,10 +219,19 @@ public class PgFrechetDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public PgDistribution newDistribution(double[] params) {
+    public PgFrechetDistribution newDistribution(double[] params) {
         return new PgFrechetDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgFrechetDistribution distribution = new PgFrechetDistribution(shape, scale);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgFrechetDistribution newDistribution(Sample sample) {
         double meanSquare = sample.getMean() *  sample.getMean();
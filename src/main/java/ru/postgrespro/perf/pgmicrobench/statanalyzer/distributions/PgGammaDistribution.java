@@ -1,7 +1,9 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions;
 
+import org.apache.commons.math3.special.Gamma;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.Pair;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.IncompleteGamma;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -9,10 +11,15 @@ import java.util.Random;
 
 /**
  * PgGammaDistribution represents Gamma distribution with shape (k) and scale (theta) parameters.
+ * Shape-dependent constants are computed once per parameters, see {@link IncompleteGamma}.
  */
-public class PgGammaDistribution implements PgSimpleDistribution {
-    private final double shape;
-    private final double scale;
+public class PgGammaDistribution implements PgDifferentiableDistribution {
+    private double shape;
+    private double scale;
+    private double invScale;
+    private double logGammaShape;
+    private double logNormalizer;
+    private double digammaShape;
 
     /**
      * Default constructor.
@@ -40,34 +47,123 @@ public class PgGammaDistribution implements PgSimpleDistribution {
      * @throws IllegalArgumentException if either shape or scale parameters are less than or equal to 0.
      */
     public PgGammaDistribution(double shape, double scale) {
+        reset(shape, scale);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double shape, double scale) {
         if (shape <= 0 || scale <= 0) {
             throw new IllegalArgumentException("Shape and scale parameters must be positive");
         }
         this.shape = shape;
         this.scale = scale;
+        this.invScale = 1 / scale;
+        this.logGammaShape = Gamma.logGamma(shape);
+        this.logNormalizer = logGammaShape + Math.log(scale);
+        this.digammaShape = Gamma.digamma(shape);
     }
 
     /**
      * PDF of Gamma distribution.
      */
     @Override
-    public double pdf(double x) {
+    public final double pdf(double x) {
         if (x <= 0) {
             return 0.0;
         }
-        double z = x / scale;
-        return (Math.pow(z, shape - 1) * Math.exp(-z)) / (scale * gamma(shape));
+        double z = x * invScale;
+        return Math.exp((shape - 1) * Math.log(z) - z - logNormalizer);
     }
 
     /**
-     * CDF approximation of Gamma distribution (using regularized incomplete gamma function).
+     * CDF of Gamma distribution (regularized incomplete gamma function).
      */
     @Override
-    public double cdf(double x) {
+    public final double cdf(double x) {
         if (x <= 0) {
             return 0.0;
         }
-        return regularizedGammaP(shape, x / scale);
+        return IncompleteGamma.regularizedP(shape, x * invScale, logGammaShape);
+    }
+
+    /**
+     * Logarithm of PDF of Gamma distribution.
+     */
+    @Override
+    public final double logPdf(double x) {
+        if (x <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        double z = x * invScale;
+        return (shape - 1) * Math.log(z) - z - logNormalizer;
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double x = values[i];
+            if (x <= 0) {
+                result[i] = 0.0;
+            } else {
+                double z = x * invScale;
+                result[i] = Math.exp((shape - 1) * Math.log(z) - z - logNormalizer);
+            }
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double x = values[i];
+            result[i] = x <= 0 ? 0.0 : IncompleteGamma.regularizedP(shape, x * invScale, logGammaShape);
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double x = values[i];
+            if (x <= 0) {
+                result[i] = Double.NEGATIVE_INFINITY;
+            } else {
+                double z = x * invScale;
+                result[i] = (shape - 1) * Math.log(z) - z - logNormalizer;
+            }
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double x, double[] gradient) {
+        if (x <= 0) {
+            gradient[0] = 0;
+            gradient[1] = 0;
+            return;
+        }
+        double z = x * invScale;
+        gradient[0] = Math.log(z) - digammaShape;
+        gradient[1] = (z - shape) * invScale;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumLog = 0;
+        double sumZ = 0;
+        for (double x : values) {
+            if (x <= 0) {
+                gradient[0] = 0;
+                gradient[1] = 0;
+                return Double.NEGATIVE_INFINITY;
+            }
+            double z = x * invScale;
+            sumLog += Math.log(z);
+            sumZ += z;
+        }
+        int n = values.length;
+        gradient[0] = sumLog - n * digammaShape;
+        gradient[1] = (sumZ - n * shape) * invScale;
+        return (shape - 1) * sumLog - sumZ - n * logNormalizer;
     }
 
     /**
@@ -142,10 +238,19 @@ public class PgGammaDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public PgDistribution newDistribution(double[] params) {
+    public PgGammaDistribution newDistribution(double[] params) {
         return new PgGammaDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgGammaDistribution distribution = new PgGammaDistribution(shape, scale);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgGammaDistribution newDistribution(Sample sample) {
         return new PgGammaDistribution(1.0, 1.0);
@@ -158,11 +263,12 @@ public class PgGammaDistribution implements PgSimpleDistribution {
 
     @Override
     public Pair<double[]> bounds() {
-        throw new RuntimeException("Not implemented");
+        return new Pair<>(new double[]{1e-6, 1e-6},
+                new double[]{Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY});
     }
 
     /**
-     * Quantile function (inverse CDF) approximation for Gamma distribution.
+     * Quantile function (inverse CDF) of Gamma distribution, see {@link IncompleteGamma#inverseRegularizedP}.
      */
     public double quantile(double p) {
         if (p <= 0) {
@@ -171,7 +277,7 @@ public class PgGammaDistribution implements PgSimpleDistribution {
         if (p >= 1) {
             return Double.POSITIVE_INFINITY;
         }
-        return gammaQuantile(shape, scale, p);
+        return scale * IncompleteGamma.inverseRegularizedP(shape, p, logGammaShape);
     }
 
     /**
@@ -179,8 +285,15 @@ public class PgGammaDistribution implements PgSimpleDistribution {
      */
     public double random(Random random) {
         if (shape < 1) {
-            return random(random) * Math.pow(random.nextDouble(), 1.0 / shape);
+            return scale * standardRandom(shape + 1, random) * Math.pow(random.nextDouble(), 1.0 / shape);
         }
+        return scale * standardRandom(shape, random);
+    }
+
+    /**
+     * Marsaglia-Tsang method for Gamma(shape, 1) with {@code shape >= 1}.
+     */
+    private static double standardRandom(double shape, Random random) {
         double d = shape - 1.0 / 3.0;
         double c = 1.0 / Math.sqrt(9.0 * d);
 
@@ -194,54 +307,8 @@ public class PgGammaDistribution implements PgSimpleDistribution {
             double u = random.nextDouble();
 
             if (u < 1 - 0.0331 * z * z * z * z || Math.log(u) < 0.5 * z * z + d * (1 - v + Math.log(v))) {
-                return scale * d * v;
+                return d * v;
             }
         }
     }
-
-    private double gamma(double x) {
-        double[] p = {676.5203681218851, -1259.1392167224028, 771.32342877765313, -176.61502916214059,
-                12.507343278686905, -0.13857109526572012, 9.9843695780195716e-6, 1.5056327351493116e-7
-        };
-
-        double g = 7.0;
-        if (x < 0.5) {
-            return Math.PI / (Math.sin(Math.PI * x) * gamma(1 - x));
-        }
-
-        x -= 1;
-        double a = 0.99999999999980993;
-        for (int i = 0; i < p.length; i++) {
-            a += p[i] / (x + i + 1);
-        }
-        double t = x + g + 0.5;
-        return Math.sqrt(2 * Math.PI) * Math.pow(t, x + 0.5) * Math.exp(-t) * a;
-    }
-
-    private double regularizedGammaP(double a, double x) {
-        double sum = 0;
-        double term = 1.0 / a;
-        double ap = a;
-
-        for (int n = 1; n < 100; n++) {
-            ap += 1;
-            term *= x / ap;
-            sum += term;
-            if (term < 1e-10) {
-                break;
-            }
-        }
-
-        return sum * Math.exp(-x + a * Math.log(x) - Math.log(gamma(a)));
-    }
-
-    private double gammaQuantile(double shape, double scale, double p) {
-        double guess = mean();
-        double error;
-        do {
-            error = cdf(guess) - p;
-            guess -= error / pdf(guess);
-        } while (Math.abs(error) > 1e-5);
-        return guess;
-    }
 }
@@ -12,12 +12,15 @@ import java.util.Random;
 /**
  * Represents Gumbel distribution, probability distribution used to model
  * distribution of maximum (or minimum) of number of samples of various distributions.
+ * Inverse and logarithm of scale are computed once per parameters.
  */
 
-public class PgGumbelDistribution implements PgSimpleDistribution {
+public class PgGumbelDistribution implements PgDifferentiableDistribution {
     private static final double EulerMascheroni = 0.57721566490153286060651209008240243104215933593992;
-    private final double location;
-    private final double scale;
+    private double location;
+    private double scale;
+    private double invScale;
+    private double logScale;
 
     public PgGumbelDistribution() {
         this(0, 1);
@@ -31,11 +34,20 @@ public class PgGumbelDistribution implements PgSimpleDistribution {
      * Gumbel distribution.
      */
     public PgGumbelDistribution(double location, double scale) {
+        reset(location, scale);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double location, double scale) {
         if (scale <= 0) {
             throw new IllegalArgumentException("Scale must be positive");
         }
         this.location = location;
         this.scale = scale;
+        this.invScale = 1 / scale;
+        this.logScale = Math.log(scale);
     }
 
     /**
@@ -53,19 +65,77 @@ public class PgGumbelDistribution implements PgSimpleDistribution {
      * PDF.
      */
     @Override
-    public double pdf(double x) {
+    public final double pdf(double x) {
         double z = z(x);
-        return Math.exp(-(z + Math.exp(-z))) / scale;
+        return Math.exp(-(z + Math.exp(-z))) * invScale;
     }
 
     /**
      * CDF.
      */
     @Override
-    public double cdf(double x) {
+    public final double cdf(double x) {
         return Math.exp(-Math.exp(-z(x)));
     }
 
+    /**
+     * Logarithm of PDF.
+     */
+    @Override
+    public final double logPdf(double x) {
+        double z = z(x);
+        return -(z + Math.exp(-z)) - logScale;
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double z = z(values[i]);
+            result[i] = Math.exp(-(z + Math.exp(-z))) * invScale;
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            result[i] = Math.exp(-Math.exp(-z(values[i])));
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double z = z(values[i]);
+            result[i] = -(z + Math.exp(-z)) - logScale;
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double x, double[] gradient) {
+        double z = z(x);
+        double tail = 1 - Math.exp(-z);
+        gradient[0] = tail * invScale;
+        gradient[1] = (z * tail - 1) * invScale;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumZ = 0;
+        double sumExp = 0;
+        double sumZExp = 0;
+        for (double value : values) {
+            double z = z(value);
+            double e = Math.exp(-z);
+            sumZ += z;
+            sumExp += e;
+            sumZExp += z * e;
+        }
+        int n = values.length;
+        gradient[0] = (n - sumExp) * invScale;
+        gradient[1] = (sumZ - sumZExp - n) * invScale;
+        return -sumZ - sumExp - n * logScale;
+    }
+
     /**
      * Mean.
      */
@@ -125,10 +195,19 @@ public class PgGumbelDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public PgDistribution newDistribution(double[] params) {
+    public PgGumbelDistribution newDistribution(double[] params) {
         return new PgGumbelDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgGumbelDistribution distribution = new PgGumbelDistribution(location, scale);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgGumbelDistribution newDistribution(Sample sample) {
         double scale = FastMath.sqrt(sample.getVariance() * 6.0) / FastMath.PI;
@@ -177,7 +256,7 @@ public class PgGumbelDistribution implements PgSimpleDistribution {
     }
 
     private double z(double x) {
-        return (x - location) / scale;
+        return (x - location) * invScale;
     }
 
     @Override
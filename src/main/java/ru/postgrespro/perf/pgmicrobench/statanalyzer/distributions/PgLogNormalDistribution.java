@@ -13,39 +13,139 @@ import static java.lang.Math.*;
 
 /**
  * The PgLogNormalDistribution class implements log-normal distribution.
+ * Normalizers and inverse of standard deviation are computed once per parameters.
  */
-public class PgLogNormalDistribution implements PgSimpleDistribution {
-    private final double mean;
-    private final double standardDeviation;
+public class PgLogNormalDistribution implements PgDifferentiableDistribution {
+    private static final double LOG_SQRT_2PI = 0.5 * Math.log(2 * Math.PI);
+    private static final double INV_SQRT_2PI = 1 / Math.sqrt(2 * Math.PI);
+    private static final double INV_SQRT_2 = 1 / Math.sqrt(2);
+
+    private double mean;
+    private double standardDeviation;
+    private double invStandardDeviation;
+    private double exponentFactor;
+    private double erfFactor;
+    private double pdfNormalizer;
+    private double logNormalizer;
 
     /**
      * Constructor.
      */
     public PgLogNormalDistribution(double mean, double standardDeviation) {
+        reset(mean, standardDeviation);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double mean, double standardDeviation) {
         if (standardDeviation <= 0) {
             throw new IllegalArgumentException("Standard deviation must be positive");
         }
         this.mean = mean;
         this.standardDeviation = standardDeviation;
+        this.invStandardDeviation = 1 / standardDeviation;
+        this.exponentFactor = -0.5 * invStandardDeviation * invStandardDeviation;
+        this.erfFactor = invStandardDeviation * INV_SQRT_2;
+        this.pdfNormalizer = INV_SQRT_2PI * invStandardDeviation;
+        this.logNormalizer = Math.log(standardDeviation) + LOG_SQRT_2PI;
     }
 
     @Override
-    public double pdf(double value) {
+    public final double pdf(double value) {
         if (value <= 0) {
             return 0;
         }
-        double logValue = Math.log(value);
-        return (1 / (value * standardDeviation * sqrt(2 * Math.PI)))
-                * exp(-Math.pow(logValue - mean, 2) / (2 * standardDeviation * standardDeviation));
+        double d = Math.log(value) - mean;
+        return pdfNormalizer / value * exp(d * d * exponentFactor);
     }
 
     @Override
-    public double cdf(double value) {
+    public final double cdf(double value) {
         if (value <= 0) {
             return 0;
         }
+        return 0.5 * (1 + Erf.erf((Math.log(value) - mean) * erfFactor));
+    }
+
+    @Override
+    public final double logPdf(double value) {
+        if (value <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
         double logValue = Math.log(value);
-        return 0.5 * (1 + Erf.erf((logValue - mean) / (standardDeviation * sqrt(2))));
+        double d = logValue - mean;
+        return d * d * exponentFactor - logValue - logNormalizer;
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = 0;
+            } else {
+                double d = Math.log(value) - mean;
+                result[i] = pdfNormalizer / value * exp(d * d * exponentFactor);
+            }
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            result[i] = value <= 0 ? 0 : 0.5 * (1 + Erf.erf((Math.log(value) - mean) * erfFactor));
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = Double.NEGATIVE_INFINITY;
+            } else {
+                double logValue = Math.log(value);
+                double d = logValue - mean;
+                result[i] = d * d * exponentFactor - logValue - logNormalizer;
+            }
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double value, double[] gradient) {
+        if (value <= 0) {
+            gradient[0] = 0;
+            gradient[1] = 0;
+            return;
+        }
+        double z = (Math.log(value) - mean) * invStandardDeviation;
+        gradient[0] = z * invStandardDeviation;
+        gradient[1] = (z * z - 1) * invStandardDeviation;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumZ = 0;
+        double sumZ2 = 0;
+        double sumLog = 0;
+        for (double value : values) {
+            if (value <= 0) {
+                gradient[0] = 0;
+                gradient[1] = 0;
+                return Double.NEGATIVE_INFINITY;
+            }
+            double logValue = Math.log(value);
+            double z = (logValue - mean) * invStandardDeviation;
+            sumLog += logValue;
+            sumZ += z;
+            sumZ2 += z * z;
+        }
+        int n = values.length;
+        gradient[0] = sumZ * invStandardDeviation;
+        gradient[1] = (sumZ2 - n) * invStandardDeviation;
+        return -0.5 * sumZ2 - sumLog - n * logNormalizer;
     }
 
     @Override
@@ -99,10 +199,19 @@ public class PgLogNormalDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public PgDistribution newDistribution(double[] params) {
+    public PgLogNormalDistribution newDistribution(double[] params) {
         return new PgLogNormalDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgLogNormalDistribution distribution = new PgLogNormalDistribution(mean, standardDeviation);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgLogNormalDistribution newDistribution(Sample sample) {
         double meanSquare = sample.getMean() * sample.getMean();
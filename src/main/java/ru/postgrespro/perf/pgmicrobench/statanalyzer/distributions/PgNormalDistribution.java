@@ -10,20 +10,42 @@ import java.util.Random;
 
 /**
  * The PgNormalDistribution class implements normal distribution.
+ * Normalizers and inverse of standard deviation are computed once per parameters.
  */
-public class PgNormalDistribution implements PgSimpleDistribution {
-    private final double mean;
-    private final double standardDeviation;
+public class PgNormalDistribution implements PgDifferentiableDistribution {
+    private static final double LOG_SQRT_2PI = 0.5 * Math.log(2 * Math.PI);
+    private static final double INV_SQRT_2PI = 1 / Math.sqrt(2 * Math.PI);
+    private static final double INV_SQRT_2 = 1 / Math.sqrt(2);
+
+    private double mean;
+    private double standardDeviation;
+    private double invStandardDeviation;
+    private double exponentFactor;
+    private double erfFactor;
+    private double pdfNormalizer;
+    private double logNormalizer;
 
     /**
      * Constructor.
      */
     public PgNormalDistribution(double mean, double standardDeviation) {
+        reset(mean, standardDeviation);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double mean, double standardDeviation) {
         if (standardDeviation <= 0) {
             throw new IllegalArgumentException("Standard deviation must be positive");
         }
         this.mean = mean;
         this.standardDeviation = standardDeviation;
+        this.invStandardDeviation = 1 / standardDeviation;
+        this.exponentFactor = -0.5 * invStandardDeviation * invStandardDeviation;
+        this.erfFactor = invStandardDeviation * INV_SQRT_2;
+        this.pdfNormalizer = INV_SQRT_2PI * invStandardDeviation;
+        this.logNormalizer = Math.log(standardDeviation) + LOG_SQRT_2PI;
     }
 
     /**
@@ -44,14 +66,65 @@ public class PgNormalDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public double pdf(double value) {
-        double exponent = -((value - mean) * (value - mean)) / (2 * standardDeviation * standardDeviation);
-        return (1 / (standardDeviation * Math.sqrt(2 * Math.PI))) * Math.exp(exponent);
+    public final double pdf(double value) {
+        double d = value - mean;
+        return pdfNormalizer * Math.exp(d * d * exponentFactor);
     }
 
     @Override
-    public double cdf(double value) {
-        return 0.5 * (1 + Erf.erf((value - mean) / (standardDeviation * Math.sqrt(2))));
+    public final double cdf(double value) {
+        return 0.5 * (1 + Erf.erf((value - mean) * erfFactor));
+    }
+
+    @Override
+    public final double logPdf(double value) {
+        double d = value - mean;
+        return d * d * exponentFactor - logNormalizer;
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double d = values[i] - mean;
+            result[i] = pdfNormalizer * Math.exp(d * d * exponentFactor);
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            result[i] = 0.5 * (1 + Erf.erf((values[i] - mean) * erfFactor));
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double d = values[i] - mean;
+            result[i] = d * d * exponentFactor - logNormalizer;
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double value, double[] gradient) {
+        double z = (value - mean) * invStandardDeviation;
+        gradient[0] = z * invStandardDeviation;
+        gradient[1] = (z * z - 1) * invStandardDeviation;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumZ = 0;
+        double sumZ2 = 0;
+        for (double value : values) {
+            double z = (value - mean) * invStandardDeviation;
+            sumZ += z;
+            sumZ2 += z * z;
+        }
+        int n = values.length;
+        gradient[0] = sumZ * invStandardDeviation;
+        gradient[1] = (sumZ2 - n) * invStandardDeviation;
+        return -0.5 * sumZ2 - n * logNormalizer;
     }
 
     @Override
@@ -107,6 +180,15 @@ public class PgNormalDistribution implements PgSimpleDistribution {
         return new PgNormalDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgNormalDistribution distribution = new PgNormalDistribution(mean, standardDeviation);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgNormalDistribution newDistribution(Sample sample) {
         return new PgNormalDistribution(sample.getMean(), sample.getStandardDeviation());
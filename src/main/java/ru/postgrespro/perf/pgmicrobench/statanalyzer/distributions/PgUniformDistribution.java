@@ -13,18 +13,27 @@ import java.util.Random;
  * distributed between specified minimum and maximum value.
  */
 public class PgUniformDistribution implements PgSimpleDistribution {
-    private final double min;
-    private final double max;
+    private double min;
+    private double max;
+    private double density;
 
     /**
      * Constructor.
      */
     public PgUniformDistribution(double min, double max) {
+        reset(min, max);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double min, double max) {
         if (max <= min) {
             throw new IllegalArgumentException("Max must be greater than Min.");
         }
         this.min = min;
         this.max = max;
+        this.density = 1 / (max - min);
     }
 
     /**
@@ -54,22 +63,38 @@ public class PgUniformDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public double pdf(double value) {
+    public final double pdf(double value) {
         if (value < min || value >= max) {
             return 0;
         }
-        return 1 / (max - min);
+        return density;
     }
 
     @Override
-    public double cdf(double value) {
+    public final double cdf(double value) {
         if (value < min) {
             return 0;
         }
         if (value >= max) {
             return 1;
         }
-        return (value - min) / (max - min);
+        return (value - min) * density;
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            result[i] = value < min || value >= max ? 0 : density;
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            result[i] = value < min ? 0 : value >= max ? 1 : (value - min) * density;
+        }
     }
 
     @Override
@@ -120,6 +145,15 @@ public class PgUniformDistribution implements PgSimpleDistribution {
         return new PgUniformDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgUniformDistribution distribution = new PgUniformDistribution(min, max);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgUniformDistribution newDistribution(Sample sample) {
         return new PgUniformDistribution(0.0, 1.0);
@@ -13,39 +13,138 @@ import static java.lang.Math.pow;
 
 /**
  * The PgWeibullDistribution class implements weibull distribution.
+ * Inverses and logarithms of parameters are computed once per parameters,
+ * so that density costs single logarithm and two exponents.
  */
-public class PgWeibullDistribution implements PgSimpleDistribution {
-    private final double shape;
-    private final double scale;
+public class PgWeibullDistribution implements PgDifferentiableDistribution {
+    private double shape;
+    private double scale;
+    private double invShape;
+    private double invScale;
+    private double logScale;
+    private double ratio;
+    private double logRatio;
 
     /**
      * Constructor.
      */
     public PgWeibullDistribution(double shape, double scale) {
-        this.shape = shape;
-        this.scale = scale;
+        reset(shape, scale);
+    }
+
+    /**
+     * Replaces parameters in place, used only for private instance of evaluator.
+     */
+    final void reset(double shape, double scale) {
         if (shape <= 0) {
             throw new IllegalArgumentException("Shape must be positive");
         }
         if (scale <= 0) {
             throw new IllegalArgumentException("Scale must be positive");
         }
+        this.shape = shape;
+        this.scale = scale;
+        this.invShape = 1 / shape;
+        this.invScale = 1 / scale;
+        this.logScale = Math.log(scale);
+        this.ratio = shape * invScale;
+        this.logRatio = Math.log(ratio);
     }
 
     @Override
-    public double pdf(double value) {
-        if (value < 0) {
-            return 0;
+    public final double pdf(double value) {
+        if (value <= 0) {
+            return value < 0 ? 0 : ratio * pow(0, shape - 1);
         }
-        return (shape / scale) * pow(value / scale, shape - 1) * Math.exp(-pow(value / scale, shape));
+        double logV = Math.log(value) - logScale;
+        return Math.exp(logRatio + (shape - 1) * logV - Math.exp(shape * logV));
     }
 
     @Override
-    public double cdf(double value) {
+    public final double cdf(double value) {
         if (value < 0) {
             return 0;
         }
-        return 1 - Math.exp(-pow(value / scale, shape));
+        return 1 - Math.exp(-pow(value * invScale, shape));
+    }
+
+    @Override
+    public final double logPdf(double value) {
+        if (value <= 0) {
+            return value < 0 ? Double.NEGATIVE_INFINITY : Math.log(pdf(value));
+        }
+        double logV = Math.log(value) - logScale;
+        return logRatio + (shape - 1) * logV - Math.exp(shape * logV);
+    }
+
+    @Override
+    public final void pdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = pdf(value);
+            } else {
+                double logV = Math.log(value) - logScale;
+                result[i] = Math.exp(logRatio + (shape - 1) * logV - Math.exp(shape * logV));
+            }
+        }
+    }
+
+    @Override
+    public final void cdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            result[i] = value < 0 ? 0 : 1 - Math.exp(-pow(value * invScale, shape));
+        }
+    }
+
+    @Override
+    public final void logPdf(double[] values, double[] result) {
+        for (int i = 0; i < values.length; i++) {
+            double value = values[i];
+            if (value <= 0) {
+                result[i] = logPdf(value);
+            } else {
+                double logV = Math.log(value) - logScale;
+                result[i] = logRatio + (shape - 1) * logV - Math.exp(shape * logV);
+            }
+        }
+    }
+
+    @Override
+    public final void logPdfGradient(double value, double[] gradient) {
+        if (value <= 0) {
+            gradient[0] = 0;
+            gradient[1] = 0;
+            return;
+        }
+        double logV = Math.log(value) - logScale;
+        double vk = Math.exp(shape * logV);
+        gradient[0] = invShape + logV - vk * logV;
+        gradient[1] = shape * (vk - 1) * invScale;
+    }
+
+    @Override
+    public final double logLikelihood(double[] values, double[] gradient) {
+        double sumLog = 0;
+        double sumPow = 0;
+        double sumPowLog = 0;
+        for (double value : values) {
+            if (value <= 0) {
+                gradient[0] = 0;
+                gradient[1] = 0;
+                return Double.NEGATIVE_INFINITY;
+            }
+            double logV = Math.log(value) - logScale;
+            double vk = Math.exp(shape * logV);
+            sumLog += logV;
+            sumPow += vk;
+            sumPowLog += vk * logV;
+        }
+        int n = values.length;
+        gradient[0] = n * invShape + sumLog - sumPowLog;
+        gradient[1] = shape * (sumPow - n) * invScale;
+        return n * logRatio + (shape - 1) * sumLog - sumPow;
     }
 
     @Override
@@ -60,7 +159,7 @@ public class PgWeibullDistribution implements PgSimpleDistribution {
 
     @Override
     public double median() {
-        return scale * pow(Math.log(2), 1 / shape);
+        return scale * pow(Math.log(2), invShape);
     }
 
     @Override
@@ -87,7 +186,7 @@ public class PgWeibullDistribution implements PgSimpleDistribution {
         List<Double> values = new ArrayList<>();
         for (int i = 0; i < size; i++) {
             double u = random.nextDouble();
-            double sample = scale * pow(-Math.log(1 - u), 1 / shape);
+            double sample = scale * pow(-Math.log(1 - u), invShape);
             values.add(sample);
         }
         return new Sample(values);
@@ -104,10 +203,19 @@ public class PgWeibullDistribution implements PgSimpleDistribution {
     }
 
     @Override
-    public PgDistribution newDistribution(double[] params) {
+    public PgWeibullDistribution newDistribution(double[] params) {
         return new PgWeibullDistribution(params[0], params[1]);
     }
 
+    @Override
+    public PgDistributionEvaluator newEvaluator() {
+        PgWeibullDistribution distribution = new PgWeibullDistribution(shape, scale);
+        return (params, offset) -> {
+            distribution.reset(params[offset], params[offset + 1]);
+            return distribution;
+        };
+    }
+
     @Override
     public PgWeibullDistribution newDistribution(Sample sample) {
         double meanSquare = sample.getMean() *  sample.getMean();
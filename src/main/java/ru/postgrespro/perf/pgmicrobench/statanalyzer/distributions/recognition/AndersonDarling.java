@@ -0,0 +1,104 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.concurrent.Executor;
+
+/**
+ * This class provides methods to perform the Anderson-Darling test for goodness of fit
+ * and to fit a distribution to a given dataset using the Anderson-Darling statistic.
+ * Statistic weights deviations by {@code 1 / (F (1 - F))}, so unlike Cramer–Von Mises and
+ * Kolmogorov-Smirnov it is sensitive to tails, e.g. to latency outliers.
+ */
+public class AndersonDarling implements IDistributionTest, IParameterEstimator {
+    private final Executor executor;
+
+    /**
+     * Creates test and estimator evaluating optimizer objective in calling thread.
+     */
+    public AndersonDarling() {
+        this(null);
+    }
+
+    /**
+     * Creates test and estimator evaluating every CMA-ES population of {@link #fit} on given executor.
+     * Fitted parameters are the same as of sequential estimator.
+     *
+     * @param executor executor of objective evaluations, {@code null} to evaluate in calling thread
+     */
+    public AndersonDarling(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Calculates Anderson-Darling statistic for given data and distribution.
+     *
+     * @param sample       sample data
+     * @param distribution distribution to compare data against
+     * @return value of Anderson-Darling statistic
+     */
+    @Override
+    public double statistic(Sample sample, PgDistribution distribution) {
+        return statistic(sample, distribution, new double[sample.size()]);
+    }
+
+    @Override
+    public double statistic(Sample sample, PgDistribution distribution, double[] cdf) {
+        return EdfContext.of(sample).andersonDarling(distribution, cdf);
+    }
+
+    @Override
+    public double statistic(EdfContext context, PgDistribution distribution, double[] cdf) {
+        return context.andersonDarling(distribution, cdf);
+    }
+
+    /**
+     * Computes p-value of Anderson-Darling test, see {@link EdfStatistics#andersonDarlingPValue(double, double)}.
+     *
+     * @param sample       sample data
+     * @param distribution theoretical distribution
+     * @return p-value of Anderson-Darling test
+     */
+    @Override
+    public double test(Sample sample, PgDistribution distribution) {
+        return test(EdfContext.of(sample), distribution);
+    }
+
+    @Override
+    public double test(EdfContext context, PgDistribution distribution) {
+        double statistic = context.andersonDarling(distribution, new double[context.size()]);
+        return EdfStatistics.andersonDarlingPValue(statistic, context.getEffectiveSize());
+    }
+
+    /**
+     * Fits distribution to data by minimizing Anderson-Darling statistic.
+     *
+     * @param sample       sample data
+     * @param distribution type of distribution to fit to data
+     * @return EstimatedParameters object containing fitted parameters, distribution and p-value
+     */
+    @Override
+    public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
+
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
+        double pValue = test(sample, optimizedDist);
+
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+    }
+
+    @Override
+    public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
+
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
+        double pValue = test(sample, optimizedDist);
+
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+    }
+}
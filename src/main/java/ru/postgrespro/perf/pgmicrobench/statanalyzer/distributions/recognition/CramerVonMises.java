@@ -1,13 +1,18 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
 
+import org.apache.commons.math3.analysis.interpolation.SplineInterpolator;
+import org.apache.commons.math3.analysis.polynomials.PolynomialSplineFunction;
+import org.apache.commons.math3.special.Erf;
 import org.apache.commons.math3.special.Gamma;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
 
-import java.util.List;
+import java.util.concurrent.Executor;
 
 import static org.apache.commons.math3.special.Gamma.logGamma;
 
@@ -16,36 +21,75 @@ import static org.apache.commons.math3.special.Gamma.logGamma;
  * and to fit a distribution to a given dataset using the Cramer–Von Mises statistic.
  */
 public class CramerVonMises implements IDistributionTest, IParameterEstimator {
+    private final Executor executor;
+
+    /**
+     * Creates test and estimator evaluating optimizer objective in calling thread.
+     */
+    public CramerVonMises() {
+        this(null);
+    }
+
+    /**
+     * Creates test and estimator evaluating every CMA-ES population of {@link #fit} on given executor.
+     * Fitted parameters are the same as of sequential estimator.
+     *
+     * @param executor executor of objective evaluations, {@code null} to evaluate in calling thread
+     */
+    public CramerVonMises(Executor executor) {
+        this.executor = executor;
+    }
+
     /**
      * Calculates Cramer–Von Mises statistic for given data and distribution.
+     * Samples with non-uniform weights are handled by {@link EdfStatistics#cramerVonMises(WeightedSample, PgDistribution)}.
      *
      * @param sample       sample data
      * @param distribution distribution to compare data against
      * @return value of Cramer–Von Mises statistic
      */
     public double statistic(Sample sample, PgDistribution distribution) {
-        int n = sample.size();
-        List<Double> sortedValues = sample.getSortedValues();
+        return statistic(sample, distribution, new double[sample.size()]);
+    }
 
-        double sum = 0.0;
-        for (int i = 0; i < n; i++) {
-            double empiricalCdf = (2.0 * (i + 1) - 1) / (2.0 * n);
-            double theoreticalCdf = distribution.cdf(sortedValues.get(i));
-            double diff = theoreticalCdf - empiricalCdf;
-            sum += diff * diff;
-        }
+    @Override
+    public double statistic(Sample sample, PgDistribution distribution, double[] cdf) {
+        return EdfContext.of(sample).cramerVonMises(distribution, cdf);
+    }
 
-        return (1.0 / (12.0 * n)) + sum;
+    @Override
+    public double statistic(EdfContext context, PgDistribution distribution, double[] cdf) {
+        return context.cramerVonMises(distribution, cdf);
     }
 
     /**
      * Computes p-value for given Cramer–Von Mises statistic.
+     * Value is interpolated in table of {@link #exactPValue(double)}, see {@link PValueTable}.
      *
      * @param statistic Cramer–Von Mises statistic (must be positive)
      * @return p-value corresponding to statistic
      * @throws IllegalArgumentException if statistic is non-positive
      */
-    private static double computePValue(double statistic) {
+    static double computePValue(double statistic) {
+        if (statistic <= 0) {
+            throw new IllegalArgumentException("Statistic must be positive.");
+        }
+        if (Double.isInfinite(statistic)) {
+            return 0.0;
+        }
+        return PValueTable.pValue(statistic);
+    }
+
+    /**
+     * Computes p-value for given Cramer–Von Mises statistic by series of asymptotic distribution.
+     * Every call evaluates many Bessel functions, so {@link #test} uses table of these values instead.
+     * Series loses precision for statistic greater than 3, where p-value is less than {@code 1e-7}.
+     *
+     * @param statistic Cramer–Von Mises statistic (must be positive)
+     * @return p-value corresponding to statistic
+     * @throws IllegalArgumentException if statistic is non-positive
+     */
+    public static double exactPValue(double statistic) {
         if (statistic <= 0) {
             throw new IllegalArgumentException("Statistic must be positive.");
         }
@@ -149,7 +193,12 @@ public class CramerVonMises implements IDistributionTest, IParameterEstimator {
      */
     @Override
     public double test(Sample sample, PgDistribution distribution) {
-        double statistic = statistic(sample, distribution);
+        return test(EdfContext.of(sample), distribution);
+    }
+
+    @Override
+    public double test(EdfContext context, PgDistribution distribution) {
+        double statistic = context.cramerVonMises(distribution, new double[context.size()]);
         return computePValue(statistic);
     }
 
@@ -162,21 +211,72 @@ public class CramerVonMises implements IDistributionTest, IParameterEstimator {
      */
     @Override
     public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new CramerVonMises());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
 
-        PgDistribution optimizedDist = distribution.newDistribution(solution);
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = test(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 
     @Override
     public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new CramerVonMises());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
 
-        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution);
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = test(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+    }
+
+    /**
+     * Natural cubic spline of {@code ln p} over {@code ln s} built from {@link #exactPValue(double)} at class loading.
+     * Knots extend past interpolated range, so that wrong boundary conditions and loss of precision
+     * of series at large statistic do not reach interpolated values.
+     * Below {@link #MIN_STATISTIC} p-value differs from one by less than {@code 1e-14}.
+     * Above {@link #MAX_STATISTIC} it is the asymptotic tail {@code sqrt(2) erfc(pi sqrt(s / 2))} of the largest
+     * eigenvalue term, scaled to match table at {@link #MAX_STATISTIC}.
+     */
+    private static final class PValueTable {
+        private static final double MIN_STATISTIC = 0.002;
+        private static final double MAX_STATISTIC = 3.0;
+        private static final double FIRST_KNOT = 0.0015;
+        private static final double LAST_KNOT = 3.5;
+        private static final int KNOTS = 512;
+
+        private static final PolynomialSplineFunction LOG_P_VALUE;
+        private static final double MAX_STATISTIC_P_VALUE;
+        private static final double TAIL_SCALE;
+
+        static {
+            double from = Math.log(FIRST_KNOT);
+            double step = (Math.log(LAST_KNOT) - from) / (KNOTS - 1);
+            double[] x = new double[KNOTS];
+            double[] y = new double[KNOTS];
+            for (int i = 0; i < KNOTS; i++) {
+                x[i] = from + i * step;
+                y[i] = Math.log(Math.min(1.0, exactPValue(Math.exp(x[i]))));
+            }
+            LOG_P_VALUE = new SplineInterpolator().interpolate(x, y);
+            MAX_STATISTIC_P_VALUE = Math.exp(LOG_P_VALUE.value(Math.log(MAX_STATISTIC)));
+            TAIL_SCALE = MAX_STATISTIC_P_VALUE / tail(MAX_STATISTIC);
+        }
+
+        private PValueTable() {
+        }
+
+        static double pValue(double statistic) {
+            if (statistic < MIN_STATISTIC) {
+                return 1.0;
+            }
+            if (statistic > MAX_STATISTIC) {
+                return Math.min(MAX_STATISTIC_P_VALUE, TAIL_SCALE * tail(statistic));
+            }
+            return Math.min(1.0, Math.exp(LOG_P_VALUE.value(Math.log(statistic))));
+        }
+
+        private static double tail(double statistic) {
+            return Math.sqrt(2) * Erf.erfc(Math.PI * Math.sqrt(statistic / 2));
+        }
     }
 }
@@ -0,0 +1,254 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.Getter;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+
+/**
+ * Empirical distribution function of sample precomputed for repeated goodness-of-fit tests:
+ * sorted values, EDF positions of weighted samples, effective size and range of values.
+ * Evenly weighted samples use positions {@code i / n} computed inline, which keeps statistics
+ * bit-identical to classic formulas without storing them.
+ *
+ * <p>All EDF statistics of package are computed here, including static ones of {@link EdfStatistics}.
+ * Context is immutable and may be shared by threads. Statistics take scratch array for CDF values owned
+ * by caller, e.g. by optimizer evaluating many distributions, so repeated evaluations allocate nothing.
+ * Statistics are defined as in {@link EdfStatistics}.
+ */
+@Getter
+public final class EdfContext {
+    private static final double CDF_EPSILON = 0x1p-53;
+
+    private final Sample sample;
+    private final double[] sortedValues;
+    private final double effectiveSize;
+    private final double min;
+    private final double max;
+    @Getter(AccessLevel.NONE)
+    private final double[] sortedWeights;
+    @Getter(AccessLevel.NONE)
+    private final double[] cumulativeWeights;
+
+    private EdfContext(Sample sample) {
+        this(sample, sample.getSortedValueArray(),
+                EdfStatistics.isWeighted(sample) ? ((WeightedSample) sample).getSortedWeightArray() : null,
+                EdfStatistics.isWeighted(sample) ? ((WeightedSample) sample).getEffectiveSize() : sample.size());
+    }
+
+    /**
+     * Creates context of sorted values with normalized weights, {@code null} weights mean even ones.
+     */
+    EdfContext(Sample sample, double[] sortedValues, double[] sortedWeights, double effectiveSize) {
+        this.sample = sample;
+        this.sortedValues = sortedValues;
+        this.min = sortedValues[0];
+        this.max = sortedValues[sortedValues.length - 1];
+        this.sortedWeights = sortedWeights;
+        this.effectiveSize = effectiveSize;
+        if (sortedWeights != null) {
+            this.cumulativeWeights = new double[sortedWeights.length + 1];
+            double cumulative = 0.0;
+            for (int i = 0; i < sortedWeights.length; i++) {
+                cumulativeWeights[i] = cumulative;
+                cumulative += sortedWeights[i];
+            }
+            cumulativeWeights[sortedWeights.length] = cumulative;
+        } else {
+            this.cumulativeWeights = null;
+        }
+    }
+
+    /**
+     * Creates context of sample, sorting its values if they were not sorted yet.
+     *
+     * @param sample sample to test.
+     * @return context of sample.
+     */
+    public static EdfContext of(Sample sample) {
+        return new EdfContext(sample);
+    }
+
+    /**
+     * Returns number of distinct points of EDF, i.e. size of sample.
+     *
+     * @return number of values.
+     */
+    public int size() {
+        return sortedValues.length;
+    }
+
+    /**
+     * Checks whether sample has non-uniform weights.
+     *
+     * @return {@code true} if weighted statistics are used.
+     */
+    public boolean isWeighted() {
+        return sortedWeights != null;
+    }
+
+    /**
+     * Calculates Cramer–Von Mises statistic.
+     *
+     * @param distribution distribution to compare sample against.
+     * @param cdf          scratch array at least as long as sample.
+     * @return value of Cramer–Von Mises statistic.
+     */
+    public double cramerVonMises(PgDistribution distribution, double[] cdf) {
+        distribution.cdf(sortedValues, cdf);
+        int n = sortedValues.length;
+        double sum = 0.0;
+        if (sortedWeights == null) {
+            for (int i = 0; i < n; i++) {
+                double diff = cdf[i] - (2.0 * (i + 1) - 1) / (2.0 * n);
+                sum += diff * diff;
+            }
+            return (1.0 / (12.0 * n)) + sum;
+        }
+
+        for (int i = 0; i < n; i++) {
+            double w = sortedWeights[i];
+            double diff = cumulativeWeights[i] + w / 2 - cdf[i];
+            sum += w * (diff * diff + w * w / 12);
+        }
+        return effectiveSize * sum;
+    }
+
+    /**
+     * Calculates Kolmogorov-Smirnov statistic.
+     *
+     * @param distribution distribution to compare sample against.
+     * @param cdf          scratch array at least as long as sample.
+     * @return value of Kolmogorov-Smirnov statistic.
+     */
+    public double kolmogorovSmirnov(PgDistribution distribution, double[] cdf) {
+        distribution.cdf(sortedValues, cdf);
+        int n = sortedValues.length;
+        double d = 0.0;
+        for (int i = 0; i < n; i++) {
+            double u = cdf[i];
+            double current = Math.max(upper(i, n) - u, u - lower(i, n));
+            if (current > d) {
+                d = current;
+            }
+        }
+        return d;
+    }
+
+    /**
+     * Calculates Anderson-Darling statistic.
+     *
+     * @param distribution distribution to compare sample against.
+     * @param cdf          scratch array at least as long as sample.
+     * @return value of Anderson-Darling statistic, see {@link #statistics(PgDistribution, double[])} for CDF 0 and 1.
+     */
+    public double andersonDarling(PgDistribution distribution, double[] cdf) {
+        distribution.cdf(sortedValues, cdf);
+        int n = sortedValues.length;
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
+            double u = Math.min(Math.max(cdf[i], CDF_EPSILON), 1 - CDF_EPSILON);
+            double middle = middle(i, n);
+            sum += weight(i, n) * (middle * Math.log(u) + (1 - middle) * Math.log1p(-u));
+        }
+        return effectiveSize * (-1 - 2 * sum);
+    }
+
+    /**
+     * Calculates Cramer–Von Mises, Kolmogorov-Smirnov and Anderson-Darling statistics
+     * from single evaluation of CDF. Anderson-Darling takes CDF limited to {@code [2^-53, 1 - 2^-53]},
+     * so that value outside of support gives large but finite statistic, which optimizer can still decrease.
+     *
+     * @param distribution distribution to compare sample against.
+     * @param cdf          scratch array at least as long as sample.
+     * @return values of statistics.
+     */
+    public Statistics statistics(PgDistribution distribution, double[] cdf) {
+        distribution.cdf(sortedValues, cdf);
+        int n = sortedValues.length;
+        double cvm = 0.0;
+        double ks = 0.0;
+        double ad = 0.0;
+        for (int i = 0; i < n; i++) {
+            double u = cdf[i];
+            double w = weight(i, n);
+            double middle = middle(i, n);
+            double diff = u - middle;
+            cvm += w * (diff * diff + w * w / 12);
+            double current = Math.max(upper(i, n) - u, u - lower(i, n));
+            if (current > ks) {
+                ks = current;
+            }
+            double clamped = Math.min(Math.max(u, CDF_EPSILON), 1 - CDF_EPSILON);
+            ad += w * (middle * Math.log(clamped) + (1 - middle) * Math.log1p(-clamped));
+        }
+        return new Statistics(effectiveSize * cvm, ks, effectiveSize * (-1 - 2 * ad), effectiveSize);
+    }
+
+    /**
+     * Calculates all statistics using new scratch array.
+     *
+     * @param distribution distribution to compare sample against.
+     * @return values of statistics.
+     */
+    public Statistics statistics(PgDistribution distribution) {
+        return statistics(distribution, new double[size()]);
+    }
+
+    private double weight(int i, int n) {
+        return sortedWeights == null ? 1.0 / n : sortedWeights[i];
+    }
+
+    private double lower(int i, int n) {
+        return sortedWeights == null ? i / (double) n : cumulativeWeights[i];
+    }
+
+    private double upper(int i, int n) {
+        return sortedWeights == null ? (i + 1) / (double) n : cumulativeWeights[i + 1];
+    }
+
+    private double middle(int i, int n) {
+        return sortedWeights == null ? (2.0 * (i + 1) - 1) / (2.0 * n) : cumulativeWeights[i] + sortedWeights[i] / 2;
+    }
+
+    /**
+     * Goodness-of-fit statistics of single distribution with p-values of corresponding tests.
+     */
+    @Data
+    public static class Statistics {
+        private final double cramerVonMises;
+        private final double kolmogorovSmirnov;
+        private final double andersonDarling;
+        private final double effectiveSize;
+
+        /**
+         * Returns p-value of Cramer–Von Mises test, same as of {@link CramerVonMises#test}.
+         *
+         * @return p-value.
+         */
+        public double getCramerVonMisesPValue() {
+            return EdfStatistics.cramerVonMisesPValue(cramerVonMises);
+        }
+
+        /**
+         * Returns p-value of Kolmogorov-Smirnov test, same as of {@link KolmogorovSmirnov#test}.
+         *
+         * @return p-value.
+         */
+        public double getKolmogorovSmirnovPValue() {
+            return EdfStatistics.kolmogorovSmirnovPValue(kolmogorovSmirnov, effectiveSize);
+        }
+
+        /**
+         * Returns p-value of Anderson-Darling test, same as of {@link AndersonDarling#test}.
+         *
+         * @return p-value.
+         */
+        public double getAndersonDarlingPValue() {
+            return EdfStatistics.andersonDarlingPValue(andersonDarling, effectiveSize);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+
+/**
+ * Goodness-of-fit statistics based on empirical distribution function of weighted sample,
+ * e.g. histogram buckets with counts as weights. Every statistic costs one CDF evaluation
+ * per distinct value, regardless of number of observations sample represents.
+ *
+ * <p>Statistics are exact integrals over weighted EDF and are scaled by effective sample size
+ * {@link WeightedSample#getEffectiveSize()}. For evenly weighted samples they coincide with classic
+ * formulas: with {@code u_i = F(x_i)}, weights {@code w_i} and midpoints {@code m_i} of EDF jumps,
+ * <ul>
+ * <li>Cramer–Von Mises: {@code n * sum w_i ((m_i - u_i)^2 + w_i^2 / 12)};</li>
+ * <li>Kolmogorov-Smirnov: {@code max(C_i - u_i, u_i - C_{i-1})};</li>
+ * <li>Anderson-Darling: {@code -n - 2n * sum w_i (m_i ln u_i + (1 - m_i) ln(1 - u_i))}.</li>
+ * </ul>
+ * Formulas are implemented once in {@link EdfContext}, which also computes all three in single pass.
+ */
+public final class EdfStatistics {
+    private EdfStatistics() {
+    }
+
+    /**
+     * Checks whether sample has non-uniform weights and should be tested with weighted statistics.
+     */
+    static boolean isWeighted(Sample sample) {
+        return sample instanceof WeightedSample && !((WeightedSample) sample).isEvenWeights();
+    }
+
+    /**
+     * Calculates Cramer–Von Mises statistic of weighted sample.
+     *
+     * @param sample       weighted sample
+     * @param distribution distribution to compare sample against
+     * @return value of Cramer–Von Mises statistic
+     */
+    public static double cramerVonMises(WeightedSample sample, PgDistribution distribution) {
+        return cramerVonMises(sample.getSortedValueArray(), sample.getSortedWeightArray(),
+                sample.getEffectiveSize(), distribution);
+    }
+
+    /**
+     * Calculates Cramer–Von Mises statistic of sorted values with normalized weights.
+     *
+     * @param sortedValues  values in ascending order
+     * @param sortedWeights weights of values, summing to one
+     * @param effectiveSize number of observations represented by values
+     * @param distribution  distribution to compare values against
+     * @return value of Cramer–Von Mises statistic
+     */
+    public static double cramerVonMises(double[] sortedValues, double[] sortedWeights,
+                                        double effectiveSize, PgDistribution distribution) {
+        return new EdfContext(null, sortedValues, sortedWeights, effectiveSize)
+                .cramerVonMises(distribution, new double[sortedValues.length]);
+    }
+
+    /**
+     * Calculates Kolmogorov-Smirnov statistic of weighted sample.
+     *
+     * @param sample       weighted sample
+     * @param distribution distribution to compare sample against
+     * @return value of Kolmogorov-Smirnov statistic
+     */
+    public static double kolmogorovSmirnov(WeightedSample sample, PgDistribution distribution) {
+        return kolmogorovSmirnov(sample.getSortedValueArray(), sample.getSortedWeightArray(), distribution);
+    }
+
+    /**
+     * Calculates Kolmogorov-Smirnov statistic of sorted values with normalized weights.
+     *
+     * @param sortedValues  values in ascending order
+     * @param sortedWeights weights of values, summing to one
+     * @param distribution  distribution to compare values against
+     * @return value of Kolmogorov-Smirnov statistic
+     */
+    public static double kolmogorovSmirnov(double[] sortedValues, double[] sortedWeights, PgDistribution distribution) {
+        return new EdfContext(null, sortedValues, sortedWeights, 1)
+                .kolmogorovSmirnov(distribution, new double[sortedValues.length]);
+    }
+
+    /**
+     * Calculates Anderson-Darling statistic of weighted sample.
+     *
+     * @param sample       weighted sample
+     * @param distribution distribution to compare sample against
+     * @return value of Anderson-Darling statistic, see {@link EdfContext#statistics(PgDistribution, double[])} for CDF 0 and 1
+     */
+    public static double andersonDarling(WeightedSample sample, PgDistribution distribution) {
+        return andersonDarling(sample.getSortedValueArray(), sample.getSortedWeightArray(),
+                sample.getEffectiveSize(), distribution);
+    }
+
+    /**
+     * Calculates Anderson-Darling statistic of sorted values with normalized weights.
+     *
+     * @param sortedValues  values in ascending order
+     * @param sortedWeights weights of values, summing to one
+     * @param effectiveSize number of observations represented by values
+     * @param distribution  distribution to compare values against
+     * @return value of Anderson-Darling statistic, see {@link EdfContext#statistics(PgDistribution, double[])} for CDF 0 and 1
+     */
+    public static double andersonDarling(double[] sortedValues, double[] sortedWeights,
+                                         double effectiveSize, PgDistribution distribution) {
+        return new EdfContext(null, sortedValues, sortedWeights, effectiveSize)
+                .andersonDarling(distribution, new double[sortedValues.length]);
+    }
+
+    /**
+     * Computes asymptotic p-value of Cramer–Von Mises statistic.
+     *
+     * @param statistic Cramer–Von Mises statistic
+     * @return p-value corresponding to statistic
+     */
+    public static double cramerVonMisesPValue(double statistic) {
+        return CramerVonMises.computePValue(statistic);
+    }
+
+    /**
+     * Computes p-value of Kolmogorov-Smirnov statistic for effective sample size.
+     *
+     * @param statistic     Kolmogorov-Smirnov statistic
+     * @param effectiveSize number of observations, rounded and limited to {@code int}
+     * @return p-value corresponding to statistic
+     */
+    public static double kolmogorovSmirnovPValue(double statistic, double effectiveSize) {
+        int n = (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(effectiveSize)));
+        return new KolmogorovSmirnov().test(statistic, n);
+    }
+
+    /**
+     * Computes p-value of Anderson-Darling statistic for effective sample size using
+     * Marsaglia and Marsaglia (2004) approximation of its distribution with finite sample correction.
+     *
+     * @param statistic     Anderson-Darling statistic
+     * @param effectiveSize number of observations
+     * @return p-value corresponding to statistic
+     */
+    public static double andersonDarlingPValue(double statistic, double effectiveSize) {
+        if (!(statistic > 0)) {
+            return 1.0;
+        }
+        if (Double.isInfinite(statistic)) {
+            return 0.0;
+        }
+
+        double n = Math.max(1, effectiveSize);
+        double x = andersonDarlingLimitCdf(statistic);
+        double correction;
+        if (x > 0.8) {
+            correction = (-130.2137 + (745.2337 - (1705.091 - (1950.646 - (1116.360 - 255.7844 * x) * x) * x) * x) * x) / n;
+        } else {
+            double c = 0.01265 + 0.1757 / n;
+            if (x < c) {
+                double t = x / c;
+                t = Math.sqrt(t) * (1 - t) * (49 * t - 102);
+                correction = t * (0.0037 / (n * n) + 0.00078 / n + 0.00006) / n;
+            } else {
+                double t = (x - c) / (0.8 - c);
+                t = -0.00022633 + (6.54034 - (14.6538 - (14.458 - (8.259 - 1.91864 * t) * t) * t) * t) * t;
+                correction = t * (0.04213 + 0.01365 / n) / n;
+            }
+        }
+
+        return Math.min(1.0, Math.max(0.0, 1 - (x + correction)));
+    }
+
+    /**
+     * Asymptotic CDF of Anderson-Darling statistic.
+     */
+    private static double andersonDarlingLimitCdf(double z) {
+        if (z < 2) {
+            return Math.exp(-1.2337141 / z) / Math.sqrt(z)
+                    * (2.00012 + (0.247105 - (0.0649821 - (0.0347962 - (0.011672 - 0.00168691 * z) * z) * z) * z) * z);
+        }
+        return Math.exp(-Math.exp(1.0776 - (2.30695 - (0.43424 - (0.082433 - (0.008056 - 0.0003146 * z) * z) * z) * z) * z));
+    }
+}
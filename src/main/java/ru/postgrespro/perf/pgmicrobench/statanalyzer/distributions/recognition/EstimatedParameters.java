@@ -1,13 +1,21 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.RequiredArgsConstructor;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationDiagnostics;
 
 /**
  * Represents a fitted distribution along with its parameters and p-value.
+ * Diagnostics of optimizer run are available if parameters were found by
+ * {@link ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer}, otherwise they are {@code null}.
  */
 @Data
+@AllArgsConstructor
+@RequiredArgsConstructor
 public class EstimatedParameters {
     private final PgDistribution distribution;
     private final double pValue;
+    private OptimizationDiagnostics diagnostics;
 }
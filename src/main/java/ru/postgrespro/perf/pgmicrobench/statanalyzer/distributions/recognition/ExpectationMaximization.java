@@ -0,0 +1,269 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationDiagnostics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.TerminationReason;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.ParallelChunks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.IntConsumer;
+
+
+/**
+ * Fits mixtures by Expectation-Maximization. E-step computes responsibilities of components for every value
+ * over chunks of sample, in parallel if executor is given, M-step refits every component by weighted maximum likelihood of
+ * {@link FastEstimators} and sets mixture weights to mean responsibilities. Every iteration is a few linear
+ * passes over sample, and likelihood never decreases.
+ *
+ * <p>Components without fast estimator keep their parameters, only their weights are refitted. Component which
+ * weight falls below {@code 1e-6} gets zero weight and keeps its parameters, remaining weights are renormalized.
+ * Values outside
+ * support of all components are ignored. Diagnostics contain negative mean log-likelihood after every iteration,
+ * evaluations count E-steps.
+ */
+public class ExpectationMaximization implements IParameterEstimator {
+    private static final int CHUNK_SIZE = 4096;
+    private static final double MIN_WEIGHT = 1e-6;
+
+    private final IDistributionTest test;
+    private final int maxIterations;
+    private final double tolerance;
+    private final Executor executor;
+
+    /**
+     * Creates estimator with Cramer–Von Mises p-value, at most 200 iterations and relative tolerance 1e-8.
+     */
+    public ExpectationMaximization() {
+        this(new CramerVonMises(), 200, 1e-8);
+    }
+
+    /**
+     * Creates estimator with Cramer–Von Mises p-value, at most 200 iterations and relative tolerance 1e-8,
+     * evaluating E-step on given executor.
+     *
+     * @param executor executor of E-step chunks, {@code null} to evaluate in calling thread
+     */
+    public ExpectationMaximization(Executor executor) {
+        this(new CramerVonMises(), 200, 1e-8, executor);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param test          test computing p-value of fitted distribution.
+     * @param maxIterations maximal number of iterations.
+     * @param tolerance     minimal relative increase of log-likelihood per iteration to continue.
+     */
+    public ExpectationMaximization(IDistributionTest test, int maxIterations, double tolerance) {
+        this(test, maxIterations, tolerance, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param test          test computing p-value of fitted distribution.
+     * @param maxIterations maximal number of iterations.
+     * @param tolerance     minimal relative increase of log-likelihood per iteration to continue.
+     * @param executor      executor of E-step chunks, {@code null} to evaluate in calling thread.
+     */
+    public ExpectationMaximization(IDistributionTest test, int maxIterations, double tolerance, Executor executor) {
+        if (maxIterations <= 0) {
+            throw new IllegalArgumentException("Max iterations must be positive");
+        }
+        this.test = test;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.executor = executor;
+    }
+
+    /**
+     * Fits simple distribution by weighted maximum likelihood, i.e. single M-step.
+     *
+     * @param sample       sample data
+     * @param distribution type of distribution to fit
+     * @return EstimatedParameters object containing fitted distribution and p-value
+     * @throws IllegalArgumentException if distribution type has no fast estimator
+     */
+    @Override
+    public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
+        IFastEstimator estimator = FastEstimators.forType(distribution.getType());
+        if (estimator == null) {
+            throw new IllegalArgumentException("No maximum likelihood estimator for " + distribution.getType());
+        }
+        PgSimpleDistribution fitted = estimator.estimate(sample);
+        return new EstimatedParameters(fitted, test.test(sample, fitted));
+    }
+
+    /**
+     * Fits mixture starting from given components and weights.
+     *
+     * @param sample       sample data, weights of {@link WeightedSample} are used
+     * @param distribution start point of EM
+     * @return EstimatedParameters object containing fitted mixture, p-value and EM diagnostics
+     * @throws IllegalArgumentException if all values are outside support of mixture
+     */
+    @Override
+    public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
+        long start = System.nanoTime();
+        double[] values = sample.getValueArray();
+        double[] sampleWeights = sample instanceof WeightedSample && !((WeightedSample) sample).isEvenWeights()
+                ? ((WeightedSample) sample).getWeightArray()
+                : null;
+        int n = values.length;
+        int size = distribution.getSize();
+
+        PgDistribution[] components = distribution.getDistributions().toArray(new PgDistribution[0]);
+        IFastEstimator[] estimators = new IFastEstimator[size];
+        for (int k = 0; k < size; k++) {
+            if (components[k] instanceof PgSimpleDistribution) {
+                estimators[k] = FastEstimators.forType(((PgSimpleDistribution) components[k]).getType());
+            }
+        }
+        double[] weights = distribution.getWeights().stream().mapToDouble(Double::doubleValue).toArray();
+
+        int chunks = (n + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[][] chunkValues = new double[chunks][];
+        for (int c = 0; c < chunks; c++) {
+            chunkValues[c] = Arrays.copyOfRange(values, c * CHUNK_SIZE, Math.min(n, (c + 1) * CHUNK_SIZE));
+        }
+        double[][] responsibilities = new double[size][n];
+        double[] chunkLogLikelihood = new double[chunks];
+        double[] chunkWeight = new double[chunks];
+        double[] trajectory = new double[maxIterations + 1];
+
+        double logLikelihood = Double.NEGATIVE_INFINITY;
+        TerminationReason reason = TerminationReason.MAX_ITERATIONS;
+        int iteration = 0;
+        while (true) {
+            PgDistribution[] current = components;
+            double[] currentWeights = weights;
+            forEachChunk(chunks, c -> chunkLogLikelihood[c] = expectation(
+                    current, currentWeights, chunkValues[c], c * CHUNK_SIZE, sampleWeights, responsibilities, chunkWeight, c));
+
+            double totalWeight = 0;
+            double sum = 0;
+            for (int c = 0; c < chunks; c++) {
+                sum += chunkLogLikelihood[c];
+                totalWeight += chunkWeight[c];
+            }
+            if (!(totalWeight > 0)) {
+                throw new IllegalArgumentException("Sample is outside support of mixture");
+            }
+            double previous = logLikelihood;
+            logLikelihood = sum / totalWeight;
+            trajectory[iteration] = -logLikelihood;
+
+            if (iteration > 0 && logLikelihood - previous <= tolerance * Math.abs(logLikelihood)) {
+                reason = TerminationReason.CONVERGED;
+                break;
+            }
+            if (iteration == maxIterations) {
+                break;
+            }
+            iteration++;
+
+            components = components.clone();
+            weights = weights.clone();
+            double weightSum = 0;
+            for (int k = 0; k < size; k++) {
+                double weight = 0;
+                for (double r : responsibilities[k]) {
+                    weight += r;
+                }
+                weight /= totalWeight;
+                if (weight < MIN_WEIGHT) {
+                    // collapsed component is frozen, zero weight keeps its responsibilities zero
+                    weights[k] = 0;
+                    continue;
+                }
+                weights[k] = weight;
+                weightSum += weight;
+                if (estimators[k] != null) {
+                    try {
+                        components[k] = estimators[k].estimate(values, responsibilities[k]);
+                    } catch (IllegalArgumentException e) {
+                        // keep previous parameters of degenerate component
+                    }
+                }
+            }
+            for (int k = 0; k < size; k++) {
+                weights[k] /= weightSum;
+            }
+        }
+
+        List<PgDistribution> fittedComponents = new ArrayList<>(Arrays.asList(components));
+        List<Double> fittedWeights = new ArrayList<>(size);
+        for (double weight : weights) {
+            fittedWeights.add(weight);
+        }
+        PgCompositeDistribution fitted = new PgCompositeDistribution(fittedComponents, fittedWeights);
+
+        OptimizationDiagnostics diagnostics = new OptimizationDiagnostics(iteration + 1, iteration,
+                Arrays.copyOf(trajectory, iteration + 1), reason, System.nanoTime() - start);
+        return new EstimatedParameters(fitted, test.test(sample, fitted), diagnostics);
+    }
+
+    /**
+     * Runs action for every chunk index, in parallel with at most one executor task per processor.
+     */
+    private void forEachChunk(int chunks, IntConsumer action) {
+        ParallelChunks.forEach(chunks, Runtime.getRuntime().availableProcessors(), executor, () -> action::accept);
+    }
+
+    /**
+     * E-step over chunk of values: writes responsibilities multiplied by sample weights and returns
+     * weighted log-likelihood of chunk.
+     */
+    private static double expectation(PgDistribution[] components, double[] weights, double[] values, int offset,
+                                      double[] sampleWeights, double[][] responsibilities,
+                                      double[] chunkWeight, int chunk) {
+        int size = components.length;
+        int length = values.length;
+        double[][] logDensity = new double[size][length];
+        for (int k = 0; k < size; k++) {
+            components[k].logPdf(values, logDensity[k]);
+            double logWeight = Math.log(weights[k]);
+            for (int i = 0; i < length; i++) {
+                logDensity[k][i] += logWeight;
+            }
+        }
+
+        double logLikelihood = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < length; i++) {
+            double max = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < size; k++) {
+                max = Math.max(max, logDensity[k][i]);
+            }
+            double weight = sampleWeights == null ? 1 : sampleWeights[offset + i];
+            if (max == Double.NEGATIVE_INFINITY || Double.isNaN(max)) {
+                for (int k = 0; k < size; k++) {
+                    responsibilities[k][offset + i] = 0;
+                }
+                continue;
+            }
+
+            double sum = 0;
+            for (int k = 0; k < size; k++) {
+                double e = Math.exp(logDensity[k][i] - max);
+                logDensity[k][i] = e;
+                sum += e;
+            }
+            for (int k = 0; k < size; k++) {
+                responsibilities[k][offset + i] = weight * logDensity[k][i] / sum;
+            }
+            logLikelihood += weight * (max + Math.log(sum));
+            totalWeight += weight;
+        }
+
+        chunkWeight[chunk] = totalWeight;
+        return logLikelihood;
+    }
+}
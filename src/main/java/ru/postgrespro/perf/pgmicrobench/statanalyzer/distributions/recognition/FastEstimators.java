@@ -0,0 +1,373 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import org.apache.commons.math3.analysis.UnivariateFunction;
+import org.apache.commons.math3.analysis.solvers.BrentSolver;
+import org.apache.commons.math3.special.Gamma;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistributionType;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgFrechetDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGammaDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgWeibullDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.Arrays;
+
+
+/**
+ * Maximum likelihood estimators which don't need {@link ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer}.
+ * Normal and log-normal estimates are closed-form, Gumbel, Weibull, Frechet and Gamma ones reduce to
+ * root of monotone function of single parameter over sufficient statistics, so every estimate costs
+ * a few linear passes over sample.
+ */
+public final class FastEstimators {
+    private static final int MAX_SOLVER_EVALUATIONS = 200;
+    private static final double MIN_SHAPE = 1e-6;
+    private static final double MAX_SHAPE = 1e6;
+
+    private FastEstimators() {
+    }
+
+    /**
+     * Returns fast estimator for distribution type.
+     *
+     * @param type distribution type, may be {@code null}.
+     * @return estimator or {@code null} if type has no fast estimator.
+     */
+    public static IFastEstimator forType(PgDistributionType type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case NORMAL:
+                return FastEstimators::normal;
+            case LOGNORMAL:
+                return FastEstimators::logNormal;
+            case GUMBEL:
+                return FastEstimators::gumbel;
+            case WEIBULL:
+                return FastEstimators::weibull;
+            case FRECHET:
+                return FastEstimators::frechet;
+            case GAMMA:
+                return FastEstimators::gamma;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Estimates normal distribution by sample mean and biased standard deviation.
+     *
+     * @param sample sample, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgNormalDistribution normal(Sample sample) {
+        return normal(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates normal distribution by weighted mean and biased standard deviation.
+     *
+     * @param values  values.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgNormalDistribution normal(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double mean = mean(values, w);
+        return new PgNormalDistribution(mean, standardDeviation(values, w, mean));
+    }
+
+    /**
+     * Estimates log-normal distribution by mean and biased standard deviation of logarithms.
+     *
+     * @param sample sample with positive values, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgLogNormalDistribution logNormal(Sample sample) {
+        return logNormal(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates log-normal distribution by weighted mean and biased standard deviation of logarithms.
+     *
+     * @param values  values, positive unless their weight is zero.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgLogNormalDistribution logNormal(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double[] logs = logs(values, w);
+        double mean = mean(logs, w);
+        return new PgLogNormalDistribution(mean, standardDeviation(logs, w, mean));
+    }
+
+    /**
+     * Estimates Gumbel distribution.
+     *
+     * @param sample sample, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgGumbelDistribution gumbel(Sample sample) {
+        return gumbel(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates Gumbel distribution, scale is root of
+     * {@code b + sum(w_i d_i exp(-d_i / b)) / sum(w_i exp(-d_i / b))} for deviations {@code d_i} from mean.
+     *
+     * @param values  values.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgGumbelDistribution gumbel(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double mean = mean(values, w);
+        double[] deviations = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            deviations[i] = values[i] - mean;
+        }
+        double start = standardDeviation(values, w, mean) * Math.sqrt(6) / Math.PI;
+        if (!(start > 0)) {
+            throw new IllegalArgumentException("Sample has zero variance");
+        }
+
+        double scale = solve(b -> b + weightedMean(deviations, w, -1 / b), start);
+        double location = mean - scale * logMeanExp(deviations, w, -1 / scale);
+        return new PgGumbelDistribution(location, scale);
+    }
+
+    /**
+     * Estimates Weibull distribution.
+     *
+     * @param sample sample with positive values, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgWeibullDistribution weibull(Sample sample) {
+        return weibull(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates Weibull distribution, shape is root of
+     * {@code sum(w_i y_i exp(k y_i)) / sum(w_i exp(k y_i)) - 1 / k} for centered logarithms {@code y_i}.
+     *
+     * @param values  values, positive unless their weight is zero.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgWeibullDistribution weibull(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double[] scaleShape = weibullParameters(logs(values, w), w);
+        return new PgWeibullDistribution(scaleShape[1], scaleShape[0]);
+    }
+
+    /**
+     * Estimates Frechet distribution.
+     *
+     * @param sample sample with positive values, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgFrechetDistribution frechet(Sample sample) {
+        return frechet(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates Frechet distribution as reciprocal of Weibull distribution fitted to reciprocal values.
+     *
+     * @param values  values, positive unless their weight is zero.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgFrechetDistribution frechet(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double[] logs = logs(values, w);
+        for (int i = 0; i < logs.length; i++) {
+            logs[i] = -logs[i];
+        }
+        double[] scaleShape = weibullParameters(logs, w);
+        return new PgFrechetDistribution(scaleShape[1], 1 / scaleShape[0]);
+    }
+
+    /**
+     * Estimates Gamma distribution.
+     *
+     * @param sample sample with positive values, weights of {@link WeightedSample} are used.
+     * @return maximum likelihood estimate.
+     */
+    public static PgGammaDistribution gamma(Sample sample) {
+        return gamma(sample.getValueArray(), weights(sample));
+    }
+
+    /**
+     * Estimates Gamma distribution, shape is root of {@code ln k - digamma(k) = ln(mean) - mean(ln x)}.
+     *
+     * @param values  values, positive unless their weight is zero.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return maximum likelihood estimate.
+     */
+    public static PgGammaDistribution gamma(double[] values, double[] weights) {
+        double[] w = normalize(values, weights);
+        double mean = mean(values, w);
+        double s = Math.log(mean) - mean(logs(values, w), w);
+        if (!(s > 0)) {
+            throw new IllegalArgumentException("Sample has zero variance");
+        }
+
+        // Minka's approximation as start point
+        double start = (3 - s + Math.sqrt((s - 3) * (s - 3) + 24 * s)) / (12 * s);
+        double shape = solve(k -> s - Math.log(k) + Gamma.digamma(k), start);
+        return new PgGammaDistribution(shape, mean / shape);
+    }
+
+    /**
+     * Returns scale and shape of Weibull distribution fitted to logarithms of values.
+     */
+    private static double[] weibullParameters(double[] logs, double[] w) {
+        double meanLog = mean(logs, w);
+        double[] centered = new double[logs.length];
+        for (int i = 0; i < logs.length; i++) {
+            centered[i] = logs[i] - meanLog;
+        }
+        double sd = standardDeviation(centered, w, 0);
+        if (!(sd > 0)) {
+            throw new IllegalArgumentException("Sample has zero variance");
+        }
+
+        double shape = solve(k -> weightedMean(centered, w, k) - 1 / k, 1.2 / sd);
+        double scale = Math.exp(meanLog + logMeanExp(centered, w, shape) / shape);
+        return new double[]{scale, shape};
+    }
+
+    /**
+     * Finds root of increasing function by expanding bracket around start point and Brent's method.
+     */
+    private static double solve(UnivariateFunction function, double start) {
+        double left = start;
+        double right = start;
+        while (function.value(left) > 0) {
+            left /= 2;
+            if (left < MIN_SHAPE * start) {
+                throw new IllegalArgumentException("Can't bracket root");
+            }
+        }
+        while (function.value(right) < 0) {
+            right *= 2;
+            if (right > MAX_SHAPE * start) {
+                throw new IllegalArgumentException("Can't bracket root");
+            }
+        }
+        if (left == right) {
+            return left;
+        }
+        return new BrentSolver(1e-12 * right).solve(MAX_SOLVER_EVALUATIONS, function, left, right);
+    }
+
+    /**
+     * Computes {@code sum(w_i x_i exp(t x_i)) / sum(w_i exp(t x_i))} without overflow.
+     */
+    private static double weightedMean(double[] x, double[] w, double t) {
+        double max = maxProduct(x, w, t);
+        double sum = 0;
+        double weightedSum = 0;
+        for (int i = 0; i < x.length; i++) {
+            double e = w[i] * Math.exp(t * x[i] - max);
+            sum += e;
+            weightedSum += x[i] * e;
+        }
+        return weightedSum / sum;
+    }
+
+    /**
+     * Computes {@code ln(sum(w_i exp(t x_i)))} for normalized weights without overflow.
+     */
+    private static double logMeanExp(double[] x, double[] w, double t) {
+        double max = maxProduct(x, w, t);
+        double sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += w[i] * Math.exp(t * x[i] - max);
+        }
+        return max + Math.log(sum);
+    }
+
+    private static double maxProduct(double[] x, double[] w, double t) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < x.length; i++) {
+            if (w[i] > 0) {
+                max = Math.max(max, t * x[i]);
+            }
+        }
+        return max;
+    }
+
+    private static double[] weights(Sample sample) {
+        return sample instanceof WeightedSample ? ((WeightedSample) sample).getWeightArray() : null;
+    }
+
+    /**
+     * Returns weights summing to one, checking that at least two values have positive weight.
+     */
+    private static double[] normalize(double[] values, double[] weights) {
+        int n = values.length;
+        double[] w = new double[n];
+        if (weights == null) {
+            Arrays.fill(w, 1.0 / n);
+            if (n < 2) {
+                throw new IllegalArgumentException("Sample must contain at least two values");
+            }
+            return w;
+        }
+        if (weights.length != n) {
+            throw new IllegalArgumentException("Values and weights must have the same length");
+        }
+
+        double sum = 0;
+        int positive = 0;
+        for (double weight : weights) {
+            if (!(weight >= 0)) {
+                throw new IllegalArgumentException("Weights must be non-negative");
+            }
+            sum += weight;
+            positive += weight > 0 ? 1 : 0;
+        }
+        if (positive < 2) {
+            throw new IllegalArgumentException("Sample must contain at least two values");
+        }
+        for (int i = 0; i < n; i++) {
+            w[i] = weights[i] / sum;
+        }
+        return w;
+    }
+
+    private static double[] logs(double[] values, double[] w) {
+        double[] logs = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (w[i] == 0) {
+                continue;
+            }
+            if (!(values[i] > 0)) {
+                throw new IllegalArgumentException("Sample values must be positive");
+            }
+            logs[i] = Math.log(values[i]);
+        }
+        return logs;
+    }
+
+    private static double mean(double[] values, double[] w) {
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += w[i] * values[i];
+        }
+        return sum;
+    }
+
+    private static double standardDeviation(double[] values, double[] w, double mean) {
+        double sum = 0;
+        for (int i = 0; i < values.length; i++) {
+            sum += w[i] * (values[i] - mean) * (values[i] - mean);
+        }
+        return Math.sqrt(sum);
+    }
+}
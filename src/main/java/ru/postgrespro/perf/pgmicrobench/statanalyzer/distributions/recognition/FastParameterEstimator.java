@@ -0,0 +1,119 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Parameter estimator which tries {@link FastEstimators} first and falls back to optimizing estimator.
+ * Fast estimate is accepted if its p-value on fitted sample is at least {@code acceptancePValue},
+ * otherwise it becomes start point of refining estimator. Counters of accepted, refined and
+ * unsupported fits show how often optimizer is skipped; they are shared by concurrent fits.
+ */
+public class FastParameterEstimator implements IParameterEstimator {
+    private final IParameterEstimator refiningEstimator;
+    private final IDistributionTest acceptanceTest;
+    private final double acceptancePValue;
+    private final AtomicLong acceptedFits = new AtomicLong();
+    private final AtomicLong refinedFits = new AtomicLong();
+    private final AtomicLong unsupportedFits = new AtomicLong();
+
+    /**
+     * Creates estimator accepting fast estimates with Cramer–Von Mises p-value at least 0.05
+     * and refining others by minimizing Cramer–Von Mises statistic.
+     */
+    public FastParameterEstimator() {
+        this(new CramerVonMises(), new CramerVonMises(), 0.05);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param refiningEstimator estimator for rejected fast estimates, unsupported distributions and composites.
+     * @param acceptanceTest    test of fast estimate on fitted sample.
+     * @param acceptancePValue  minimal p-value to accept fast estimate, {@code 0} accepts all of them.
+     */
+    public FastParameterEstimator(IParameterEstimator refiningEstimator, IDistributionTest acceptanceTest,
+                                  double acceptancePValue) {
+        if (!(acceptancePValue >= 0 && acceptancePValue <= 1)) {
+            throw new IllegalArgumentException("Acceptance p-value must be in [0, 1]");
+        }
+        this.refiningEstimator = refiningEstimator;
+        this.acceptanceTest = acceptanceTest;
+        this.acceptancePValue = acceptancePValue;
+    }
+
+    @Override
+    public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
+        IFastEstimator fastEstimator = FastEstimators.forType(distribution.getType());
+        PgSimpleDistribution estimated = null;
+        if (fastEstimator != null) {
+            try {
+                estimated = fastEstimator.estimate(sample);
+            } catch (IllegalArgumentException e) {
+                estimated = null;
+            }
+        }
+
+        if (estimated == null) {
+            unsupportedFits.incrementAndGet();
+            return refiningEstimator.fit(sample, distribution);
+        }
+
+        double pValue = acceptanceTest.test(sample, estimated);
+        if (pValue >= acceptancePValue) {
+            acceptedFits.incrementAndGet();
+            return new EstimatedParameters(estimated, pValue);
+        }
+
+        refinedFits.incrementAndGet();
+        return refiningEstimator.fit(sample, estimated);
+    }
+
+    @Override
+    public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
+        return refiningEstimator.fit(sample, distribution);
+    }
+
+    /**
+     * Returns number of fits answered by fast estimate alone.
+     *
+     * @return accepted fits count.
+     */
+    public long getAcceptedFits() {
+        return acceptedFits.get();
+    }
+
+    /**
+     * Returns number of fits where fast estimate was used as start point of refining estimator.
+     *
+     * @return refined fits count.
+     */
+    public long getRefinedFits() {
+        return refinedFits.get();
+    }
+
+    /**
+     * Returns number of fits without fast estimate, because distribution type has no fast estimator
+     * or sample is outside its support.
+     *
+     * @return unsupported fits count.
+     */
+    public long getUnsupportedFits() {
+        return unsupportedFits.get();
+    }
+
+    /**
+     * Returns share of simple distribution fits which skipped optimizer.
+     *
+     * @return accepted fits divided by all fits, {@code NaN} if nothing was fitted.
+     */
+    public double getAcceptanceRate() {
+        long accepted = acceptedFits.get();
+        long total = accepted + refinedFits.get() + unsupportedFits.get();
+        return total == 0 ? Double.NaN : (double) accepted / total;
+    }
+}
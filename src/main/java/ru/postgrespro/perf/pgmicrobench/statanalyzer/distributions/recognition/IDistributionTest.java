@@ -6,5 +6,41 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistributio
 public interface IDistributionTest {
     public double statistic(Sample sample, PgDistribution distribution);
 
+    /**
+     * Calculates statistic using caller-provided scratch array instead of allocating one,
+     * which matters when statistic is evaluated thousands of times by optimizer.
+     *
+     * @param sample       sample data
+     * @param distribution distribution to compare data against
+     * @param buffer       scratch array at least as long as sample, its content is overwritten
+     * @return value of statistic
+     */
+    default double statistic(Sample sample, PgDistribution distribution, double[] buffer) {
+        return statistic(sample, distribution);
+    }
+
+    /**
+     * Calculates statistic on precomputed context of sample, which is reused by repeated evaluations.
+     *
+     * @param context      context of sample data
+     * @param distribution distribution to compare data against
+     * @param buffer       scratch array at least as long as sample, its content is overwritten
+     * @return value of statistic
+     */
+    default double statistic(EdfContext context, PgDistribution distribution, double[] buffer) {
+        return statistic(context.getSample(), distribution, buffer);
+    }
+
     double test(Sample sample, PgDistribution distribution);
+
+    /**
+     * Tests distribution on precomputed context of sample, which is reused by repeated tests.
+     *
+     * @param context      context of sample data
+     * @param distribution distribution to test
+     * @return p-value
+     */
+    default double test(EdfContext context, PgDistribution distribution) {
+        return test(context.getSample(), distribution);
+    }
 }
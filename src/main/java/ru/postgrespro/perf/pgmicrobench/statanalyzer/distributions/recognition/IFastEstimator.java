@@ -0,0 +1,36 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+/**
+ * Estimates parameters of single distribution type without general-purpose optimizer,
+ * e.g. in closed form or by one-dimensional root finding.
+ *
+ * @see FastEstimators
+ */
+@FunctionalInterface
+public interface IFastEstimator {
+    /**
+     * Estimates distribution from weighted values.
+     *
+     * @param values  values.
+     * @param weights non-negative weights of values, {@code null} means equal weights.
+     * @return estimated distribution.
+     * @throws IllegalArgumentException if values with positive weight are outside support of distribution or too few.
+     */
+    PgSimpleDistribution estimate(double[] values, double[] weights);
+
+    /**
+     * Estimates distribution from sample, using weights of {@link WeightedSample}.
+     *
+     * @param sample sample.
+     * @return estimated distribution.
+     * @throws IllegalArgumentException if sample is outside support of distribution or too small.
+     */
+    default PgSimpleDistribution estimate(Sample sample) {
+        double[] weights = sample instanceof WeightedSample ? ((WeightedSample) sample).getWeightArray() : null;
+        return estimate(sample.getValueArray(), weights);
+    }
+}
@@ -3,9 +3,11 @@ package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
 import org.apache.commons.math3.stat.inference.KolmogorovSmirnovTest;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
 
-import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * This class provides methods to perform the Kolmogorov-Smirnov test for goodness of fit
@@ -14,8 +16,28 @@ import java.util.List;
 public class KolmogorovSmirnov implements IDistributionTest, IParameterEstimator {
     private static final KolmogorovSmirnovTest KS_TEST = new KolmogorovSmirnovTest();
 
+    private final Executor executor;
+
+    /**
+     * Creates test and estimator evaluating optimizer objective in calling thread.
+     */
+    public KolmogorovSmirnov() {
+        this(null);
+    }
+
+    /**
+     * Creates test and estimator evaluating every CMA-ES population of {@link #fit} on given executor.
+     * Fitted parameters are the same as of sequential estimator.
+     *
+     * @param executor executor of objective evaluations, {@code null} to evaluate in calling thread
+     */
+    public KolmogorovSmirnov(Executor executor) {
+        this.executor = executor;
+    }
+
     /**
      * Calculates the Kolmogorov-Smirnov statistic for the given data and distribution.
+     * Samples with non-uniform weights are handled by {@link EdfStatistics#kolmogorovSmirnov(WeightedSample, PgDistribution)}.
      *
      * @param sample       the observed data
      * @param distribution the theoretical distribution to compare against
@@ -23,23 +45,22 @@ public class KolmogorovSmirnov implements IDistributionTest, IParameterEstimator
      */
     @Override
     public double statistic(Sample sample, PgDistribution distribution) {
-        double nd = sample.size();
-        List<Double> sortedValues = sample.getSortedValues();
-        double d = 0.0;
-
-        for (int i = 1; i <= sample.size(); ++i) {
-            double yi = distribution.cdf(sortedValues.get(i - 1));
-            double currD = Math.max(i / nd - yi, yi - (i - 1) / nd);
-            if (currD > d) {
-                d = currD;
-            }
-        }
+        return statistic(sample, distribution, new double[sample.size()]);
+    }
+
+    @Override
+    public double statistic(Sample sample, PgDistribution distribution, double[] cdf) {
+        return EdfContext.of(sample).kolmogorovSmirnov(distribution, cdf);
+    }
 
-        return d;
+    @Override
+    public double statistic(EdfContext context, PgDistribution distribution, double[] cdf) {
+        return context.kolmogorovSmirnov(distribution, cdf);
     }
 
     /**
      * Performs the Kolmogorov-Smirnov test on the given data against a specified distribution.
+     * For weighted samples effective sample size is used.
      *
      * @param sample       the observed data
      * @param distribution the theoretical distribution to compare against
@@ -47,7 +68,16 @@ public class KolmogorovSmirnov implements IDistributionTest, IParameterEstimator
      */
     @Override
     public double test(Sample sample, PgDistribution distribution) {
-        return test(statistic(sample, distribution), sample.size());
+        return test(EdfContext.of(sample), distribution);
+    }
+
+    @Override
+    public double test(EdfContext context, PgDistribution distribution) {
+        double statistic = context.kolmogorovSmirnov(distribution, new double[context.size()]);
+        if (context.isWeighted()) {
+            return EdfStatistics.kolmogorovSmirnovPValue(statistic, context.getEffectiveSize());
+        }
+        return test(statistic, context.size());
     }
 
     /**
@@ -70,21 +100,21 @@ public class KolmogorovSmirnov implements IDistributionTest, IParameterEstimator
      */
     @Override
     public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new KolmogorovSmirnov());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
 
-        PgDistribution optimizedDist = distribution.newDistribution(solution);
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = test(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 
     @Override
     public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new KolmogorovSmirnov());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, this, null, executor);
 
-        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution);
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = test(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 }
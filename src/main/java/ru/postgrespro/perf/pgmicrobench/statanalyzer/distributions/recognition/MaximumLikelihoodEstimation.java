@@ -2,8 +2,10 @@ package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
 
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDifferentiableDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
 
 /**
@@ -13,7 +15,17 @@ public class MaximumLikelihoodEstimation implements IParameterEstimator {
     private static final IDistributionTest statisticEvaluatorMLE = new IDistributionTest() {
         @Override
         public double statistic(Sample sample, PgDistribution distribution) {
-            return sample.getValues().stream().mapToDouble((x) -> -Math.log(distribution.pdf(x))).sum();
+            return statistic(sample, distribution, new double[sample.size()]);
+        }
+
+        @Override
+        public double statistic(Sample sample, PgDistribution distribution, double[] logPdf) {
+            distribution.logPdf(sample.getValueArray(), logPdf);
+            double sum = 0;
+            for (int i = 0; i < sample.size(); i++) {
+                sum -= logPdf[i];
+            }
+            return sum;
         }
 
         @Override
@@ -24,6 +36,8 @@ public class MaximumLikelihoodEstimation implements IParameterEstimator {
 
     /**
      * Estimates the parameters of a given distribution using the maximum likelihood estimation method.
+     * Distributions with analytic gradient are fitted by gradient-based optimizer,
+     * others or ones with zero likelihood at start point are fitted by CMA-ES.
      *
      * @param sample       an array of observed data for which the distribution parameters need to be estimated
      * @param distribution the type of distribution to be fitted to the data
@@ -32,21 +46,31 @@ public class MaximumLikelihoodEstimation implements IParameterEstimator {
     // TODO тут могут быть проблемы, нодо потестить
     @Override
     public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, statisticEvaluatorMLE);
+        if (distribution instanceof PgDifferentiableDistribution) {
+            OptimizationResult solution = PgOptimizer.maximizeLikelihood(sample, (PgDifferentiableDistribution) distribution, null);
+            if (Double.isFinite(solution.getValue())) {
+                PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
+                double pValue = Math.exp(-statisticEvaluatorMLE.statistic(sample, optimizedDist));
+
+                return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+            }
+        }
+
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, statisticEvaluatorMLE, null);
 
-        PgDistribution optimizedDist = distribution.newDistribution(solution);
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = Math.exp(-statisticEvaluatorMLE.statistic(sample, optimizedDist));
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 
     @Override
     public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, statisticEvaluatorMLE);
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, statisticEvaluatorMLE, null);
 
-        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution);
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = Math.exp(-statisticEvaluatorMLE.statistic(sample, optimizedDist));
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 }
@@ -4,6 +4,7 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
 
 import java.util.LinkedList;
@@ -25,12 +26,12 @@ public class Multicriteria implements IDistributionTest, IParameterEstimator {
      * @return the average deviation in CDF.
      */
     private static double avgDeviationInCdf(Sample sample, PgDistribution pgDistribution) {
-        List<Double> sortedValues = sample.getSortedValues();
+        double[] cdf = new double[sample.size()];
+        pgDistribution.cdf(sample.getSortedValueArray(), cdf);
 
         double sumOfDeltas = 0;
-        for (int i = 0; i < sortedValues.size(); i++) {
-            double sortedValue = sortedValues.get(i);
-            sumOfDeltas += Math.abs(pgDistribution.cdf(sortedValue) - ((double) (i + 1) / sample.size()));
+        for (int i = 0; i < cdf.length; i++) {
+            sumOfDeltas += Math.abs(cdf[i] - ((double) (i + 1) / sample.size()));
         }
 
         return sumOfDeltas / sample.size();
@@ -132,21 +133,21 @@ public class Multicriteria implements IDistributionTest, IParameterEstimator {
      */
     @Override
     public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new Multicriteria());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, new Multicriteria(), null);
 
-        PgDistribution optimizedDist = distribution.newDistribution(solution);
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = 1 - statistic(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 
     @Override
     public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
-        double[] solution = PgOptimizer.optimize(sample, distribution, new Multicriteria());
+        OptimizationResult solution = PgOptimizer.optimize(sample, distribution, new Multicriteria(), null);
 
-        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution);
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
         double pValue = 1 - statistic(sample, optimizedDist);
 
-        return new EstimatedParameters(optimizedDist, pValue);
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
     }
 }
@@ -0,0 +1,62 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition;
+
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.concurrent.Executor;
+
+
+/**
+ * Parameter estimator minimizing statistic of given test coarse-to-fine, on growing stratified
+ * subsamples with warm starts, see {@link PgOptimizer#optimizeProgressive}. Intended for large samples,
+ * where it costs few passes over sample instead of one pass per objective evaluation.
+ */
+public class ProgressiveParameterEstimator implements IParameterEstimator {
+    private final IDistributionTest statisticEvaluator;
+    private final Executor executor;
+
+    /**
+     * Creates estimator minimizing Cramer–Von Mises statistic in calling thread.
+     */
+    public ProgressiveParameterEstimator() {
+        this(new CramerVonMises(), null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param statisticEvaluator test whose statistic is minimized and p-value is reported, must be thread-safe
+     *                           if executor is given.
+     * @param executor           executor of CMA-ES population evaluation, {@code null} to evaluate in calling thread.
+     */
+    public ProgressiveParameterEstimator(IDistributionTest statisticEvaluator, Executor executor) {
+        this.statisticEvaluator = statisticEvaluator;
+        this.executor = executor;
+    }
+
+    @Override
+    public EstimatedParameters fit(Sample sample, PgSimpleDistribution distribution) {
+        OptimizationResult solution = PgOptimizer.optimizeProgressive(sample, distribution, statisticEvaluator,
+                null, executor);
+
+        PgDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
+        double pValue = statisticEvaluator.test(sample, optimizedDist);
+
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+    }
+
+    @Override
+    public EstimatedParameters fit(Sample sample, PgCompositeDistribution distribution) {
+        OptimizationResult solution = PgOptimizer.optimizeProgressive(sample, distribution, statisticEvaluator,
+                null, executor);
+
+        PgCompositeDistribution optimizedDist = distribution.newDistribution(solution.getPoint());
+        double pValue = statisticEvaluator.test(sample, optimizedDist);
+
+        return new EstimatedParameters(optimizedDist, pValue, solution.getDiagnostics());
+    }
+}
@@ -3,12 +3,13 @@ package ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.ToString;
-import org.apache.commons.math3.distribution.BetaDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.RegularizedBeta;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -38,6 +39,7 @@ public class HarrellDavisQuantileEstimator implements IQuantileEstimator {
 
     /**
      * Estimates quantiles for given sample and list of probabilities.
+     * Cumulative weights are computed once and shared by all probabilities.
      *
      * @param sample        sample data for which quantiles are to be estimated.
      * @param probabilities list of probabilities for which quantiles are calculated.
@@ -45,13 +47,53 @@ public class HarrellDavisQuantileEstimator implements IQuantileEstimator {
      */
     @Override
     public double[] quantiles(WeightedSample sample, List<Double> probabilities) {
+        double[] sortedValues = sample.getSortedValueArray();
+        double[] cumulativeWeights = cumulativeWeights(sample.getSortedWeightArray());
+
         double[] result = new double[probabilities.size()];
         for (int i = 0; i < probabilities.size(); i++) {
-            result[i] = getMoment(sample, probabilities.get(i), false).getC1();
+            result[i] = getMoment(sortedValues, cumulativeWeights, probabilities.get(i), false).getC1();
         }
         return result;
     }
 
+    /**
+     * Estimates quantiles in parallel, every probability is evaluated by separate fork-join task.
+     * Cumulative weights are computed once and shared by all tasks.
+     *
+     * @param sample        sample data for which quantiles are to be estimated.
+     * @param probabilities list of probabilities for which quantiles are calculated.
+     * @param pool          pool to evaluate quantiles in.
+     * @return array of quantile estimates corresponding to input probabilities.
+     */
+    @Override
+    public double[] quantiles(WeightedSample sample, List<Double> probabilities, ForkJoinPool pool) {
+        double[] sortedValues = sample.getSortedValueArray();
+        double[] cumulativeWeights = cumulativeWeights(sample.getSortedWeightArray());
+
+        double[] result = new double[probabilities.size()];
+        ParallelQuantiles.forEach(pool, result.length, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = getMoment(sortedValues, cumulativeWeights, probabilities.get(i), false).getC1();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Computes cumulative sums of sorted weights.
+     *
+     * @param sortedWeights weights of sorted values.
+     * @return array of length {@code n + 1}, where element {@code j} is total weight of first {@code j} values.
+     */
+    static double[] cumulativeWeights(double[] sortedWeights) {
+        double[] cumulative = new double[sortedWeights.length + 1];
+        for (int j = 0; j < sortedWeights.length; j++) {
+            cumulative[j + 1] = cumulative[j] + sortedWeights[j];
+        }
+        return cumulative;
+    }
+
     /**
      * Indicates whether estimator supports weighted samples.
      *
@@ -62,30 +104,26 @@ public class HarrellDavisQuantileEstimator implements IQuantileEstimator {
         return true;
     }
 
-    private Moments getMoment(WeightedSample sample, double probability, boolean calcSecondMoment) {
-        int n = sample.size();
+    private Moments getMoment(double[] sortedValues, double[] cumulativeWeights,
+                              double probability, boolean calcSecondMoment) {
+        int n = sortedValues.length;
         double a = (n + 1) * probability;
         double b = (n + 1) * (1 - probability);
-        BetaDistribution betaDistribution = new BetaDistribution(a, b);
+        RegularizedBeta betaCdf = new RegularizedBeta(a, b);
 
         double c1 = 0;
         double c2 = calcSecondMoment ? 0 : Double.NaN;
         double betaCdfRight = 0;
-        double currentProbability = 0;
-
-        List<Double> sortedValues = sample.getSortedValues();
-        List<Double> sortedWeights = sample.getSortedWeights();
 
         for (int j = 0; j < n; j++) {
             double betaCdfLeft = betaCdfRight;
-            currentProbability += sortedWeights.get(j);
 
-            betaCdfRight = betaDistribution.cumulativeProbability(currentProbability);
+            betaCdfRight = betaCdf.value(cumulativeWeights[j + 1]);
             double w = betaCdfRight - betaCdfLeft;
 
-            c1 += w * sortedValues.get(j);
+            c1 += w * sortedValues[j];
             if (calcSecondMoment) {
-                c2 += w * Math.pow(sortedValues.get(j), 2);
+                c2 += w * sortedValues[j] * sortedValues[j];
             }
         }
 
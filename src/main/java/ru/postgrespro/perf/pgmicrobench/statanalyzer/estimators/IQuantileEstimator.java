@@ -4,6 +4,7 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 
 /**
@@ -25,6 +26,25 @@ public interface IQuantileEstimator {
      */
     double[] quantiles(WeightedSample sample, List<Double> probabilities);
 
+    /**
+     * Estimates quantiles for provided sample in parallel using given fork-join pool.
+     * Probabilities are independent, so they are split into chunks evaluated by separate tasks.
+     * Implementations may override this method to share per-sample precomputation between tasks.
+     *
+     * @param sample        sample data for which quantiles are to be estimated.
+     * @param probabilities list of probabilities (values between 0 and 1)
+     *                      indicating quantiles to estimate.
+     * @param pool          pool to evaluate quantiles in.
+     * @return array of quantile estimates corresponding to input probabilities.
+     */
+    default double[] quantiles(WeightedSample sample, List<Double> probabilities, ForkJoinPool pool) {
+        double[] result = new double[probabilities.size()];
+        ParallelQuantiles.forEach(pool, result.length, ParallelQuantiles.defaultGrain(pool, result.length),
+                (from, to) -> System.arraycopy(
+                        quantiles(sample, probabilities.subList(from, to)), 0, result, from, to - from));
+        return result;
+    }
+
     /**
      * Indicates whether quantile estimator supports weighted samples.
      * Some estimators may take into account weights associated with sample elements.
@@ -0,0 +1,77 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Fork-join helper for evaluating independent quantiles in parallel.
+ * Range of probability indices is split recursively until it is not longer than grain,
+ * leaf ranges are passed to {@link RangeAction}.
+ */
+
+final class ParallelQuantiles {
+
+    private ParallelQuantiles() {
+    }
+
+    /**
+     * Processes index range {@code [0; count)} in given pool.
+     *
+     * @param pool   pool to run in.
+     * @param count  number of indices.
+     * @param grain  maximal length of range processed by single task, must be positive.
+     * @param action action applied to leaf ranges.
+     */
+    static void forEach(ForkJoinPool pool, int count, int grain, RangeAction action) {
+        if (count == 0) {
+            return;
+        }
+        pool.invoke(new RangeTask(0, count, Math.max(1, grain), action));
+    }
+
+    /**
+     * Returns grain splitting {@code count} indices into several tasks per pool worker.
+     *
+     * @param pool  pool to run in.
+     * @param count number of indices.
+     * @return grain for {@link #forEach}.
+     */
+    static int defaultGrain(ForkJoinPool pool, int count) {
+        return Math.max(1, count / (4 * pool.getParallelism()));
+    }
+
+    /**
+     * Action over index range.
+     */
+    @FunctionalInterface
+    interface RangeAction {
+        void apply(int from, int to);
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final int grain;
+        private final RangeAction action;
+
+        private RangeTask(int from, int to, int grain, RangeAction action) {
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                action.apply(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, grain, action), new RangeTask(middle, to, grain, action));
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators;
+
+import lombok.Getter;
+import org.apache.commons.math3.distribution.NormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.RegularizedBeta;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+
+/**
+ * Implements trimmed Harrell-Davis quantile estimator.
+ *
+ * <p>Harrell-Davis weights are given by Beta((n + 1) p, (n + 1) (1 - p)) distribution, whose mass
+ * concentrates in interval of width ~1/sqrt(n). This estimator integrates Beta weight only over its
+ * highest density interval holding at least {@code mass} of probability and renormalizes weights,
+ * so every quantile costs O(sqrt(n)) Beta CDF evaluations instead of O(n).
+ * Cumulative sample weights are computed once per call and shared by all probabilities.
+ *
+ * <p>Accuracy: if trimmed interval holds {@code c >= mass} of Beta weight, then
+ * {@code |trimmed - exact| <= (1 - c) * (max - min) <= (1 - mass) * (max - min)},
+ * e.g. for default {@code mass = 0.999} deviation from {@link HarrellDavisQuantileEstimator}
+ * never exceeds 0.1% of sample range. Probabilities 0 and 1 are handled as in exact estimator.
+ */
+
+public class TrimmedHarrellDavisQuantileEstimator implements IQuantileEstimator {
+
+    public static final double DEFAULT_MASS = 0.999;
+
+    private static final TrimmedHarrellDavisQuantileEstimator INSTANCE =
+            new TrimmedHarrellDavisQuantileEstimator(DEFAULT_MASS);
+
+    private static final double WIDTH_GROWTH = 1.25;
+    private static final int HDI_ITERATIONS = 64;
+
+    @Getter
+    private final double mass;
+    private final double normalQuantile;
+
+    /**
+     * Constructs estimator with given Beta weight mass to keep.
+     *
+     * @param mass probability mass of Beta weight to integrate, in (0; 1].
+     * @throws IllegalArgumentException if mass is outside (0; 1].
+     */
+    public TrimmedHarrellDavisQuantileEstimator(double mass) {
+        if (!(mass > 0 && mass <= 1)) {
+            throw new IllegalArgumentException("Mass must be in (0; 1]");
+        }
+        this.mass = mass;
+        this.normalQuantile = mass < 1
+                ? new NormalDistribution(null, 0, 1).inverseCumulativeProbability((1 + mass) / 2)
+                : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns shared instance with {@link #DEFAULT_MASS}.
+     *
+     * @return default {@code TrimmedHarrellDavisQuantileEstimator}.
+     */
+    public static TrimmedHarrellDavisQuantileEstimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Estimates quantiles for given sample and list of probabilities one by one,
+     * cumulative weights are computed once and shared by all of them.
+     *
+     * @param sample        sample data for which quantiles are to be estimated.
+     * @param probabilities list of probabilities for which quantiles are calculated.
+     * @return array of quantile estimates corresponding to input probabilities.
+     */
+    @Override
+    public double[] quantiles(WeightedSample sample, List<Double> probabilities) {
+        double[] sortedValues = sample.getSortedValueArray();
+        double[] cumulativeWeights = HarrellDavisQuantileEstimator.cumulativeWeights(sample.getSortedWeightArray());
+
+        double[] result = new double[probabilities.size()];
+        for (int i = 0; i < probabilities.size(); i++) {
+            result[i] = quantile(sortedValues, cumulativeWeights, probabilities.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Estimates quantiles in parallel, every probability is evaluated by separate fork-join task.
+     *
+     * @param sample        sample data for which quantiles are to be estimated.
+     * @param probabilities list of probabilities for which quantiles are calculated.
+     * @param pool          pool to evaluate quantiles in.
+     * @return array of quantile estimates corresponding to input probabilities.
+     */
+    @Override
+    public double[] quantiles(WeightedSample sample, List<Double> probabilities, ForkJoinPool pool) {
+        double[] sortedValues = sample.getSortedValueArray();
+        double[] cumulativeWeights = HarrellDavisQuantileEstimator.cumulativeWeights(sample.getSortedWeightArray());
+
+        double[] result = new double[probabilities.size()];
+        ParallelQuantiles.forEach(pool, result.length, 1, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                result[i] = quantile(sortedValues, cumulativeWeights, probabilities.get(i));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Indicates whether estimator supports weighted samples.
+     *
+     * @return {@code true} since this estimator supports weighted samples.
+     */
+    @Override
+    public boolean supportsWeightedSamples() {
+        return true;
+    }
+
+    private double quantile(double[] sortedValues, double[] cumulativeWeights, double probability) {
+        int n = sortedValues.length;
+        double a = (n + 1) * probability;
+        double b = (n + 1) * (1 - probability);
+        RegularizedBeta betaCdf = new RegularizedBeta(a, b);
+
+        double left = 0;
+        double right = 1;
+        if (a > 1 && b > 1 && mass < 1) {
+            double sd = Math.sqrt(a * b / ((a + b) * (a + b) * (a + b + 1)));
+            double width = Math.min(1, 2 * normalQuantile * sd);
+            while (width < 1) {
+                left = hdiLeft(betaCdf, a, b, width);
+                right = left + width;
+                if (betaCdf.value(right) - betaCdf.value(left) >= mass) {
+                    break;
+                }
+                width = Math.min(1, width * WIDTH_GROWTH);
+            }
+            if (width >= 1) {
+                left = 0;
+                right = 1;
+            }
+        }
+
+        int j = Math.max(0, upperBound(cumulativeWeights, left) - 1);
+        double betaCdfRight = betaCdf.value(Math.max(cumulativeWeights[j], left));
+        double c1 = 0;
+        double total = 0;
+
+        for (; j < n && cumulativeWeights[j] < right; j++) {
+            double betaCdfLeft = betaCdfRight;
+            betaCdfRight = betaCdf.value(Math.min(cumulativeWeights[j + 1], right));
+            double w = betaCdfRight - betaCdfLeft;
+
+            c1 += w * sortedValues[j];
+            total += w;
+        }
+
+        return c1 / total;
+    }
+
+    /**
+     * Finds left bound of highest density interval of given width for unimodal Beta(a, b), a, b > 1.
+     * Bounds of such interval have equal densities, so bisection compares log-densities only.
+     */
+    private static double hdiLeft(RegularizedBeta beta, double a, double b, double width) {
+        double mode = (a - 1) / (a + b - 2);
+        double lower = Math.max(0, mode - width);
+        double upper = Math.min(mode, 1 - width);
+
+        if (lower > 0 && beta.logDensity(lower) >= beta.logDensity(lower + width)) {
+            return lower;
+        }
+        if (upper + width < 1 && beta.logDensity(upper) <= beta.logDensity(upper + width)) {
+            return upper;
+        }
+
+        for (int i = 0; i < HDI_ITERATIONS && lower < upper; i++) {
+            double middle = (lower + upper) / 2;
+            if (beta.logDensity(middle) < beta.logDensity(middle + width)) {
+                lower = middle;
+            } else {
+                upper = middle;
+            }
+        }
+        return (lower + upper) / 2;
+    }
+
+    /**
+     * Returns index of first element strictly greater than value.
+     */
+    private static int upperBound(double[] sorted, double value) {
+        int left = 0;
+        int right = sorted.length;
+        while (left < right) {
+            int middle = (left + right) >>> 1;
+            if (sorted[middle] <= value) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        return left;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+
+/**
+ * Conversions of {@link Histogram} to samples, so that recorded values can be analyzed
+ * without keeping raw measurements. Values of histogram are divided by {@code unit},
+ * e.g. unit {@code 1e6} turns nanosecond histogram into milliseconds.
+ */
+public class HistogramSamples {
+    private HistogramSamples() {
+    }
+
+    /**
+     * Converts non-empty buckets of histogram to weighted sample,
+     * value of bucket is its midpoint and weight is its count, so effective sample size is total count.
+     *
+     * @param histogram histogram to convert, must not be modified concurrently.
+     * @param unit      divisor of histogram values.
+     * @return weighted sample of bucket midpoints.
+     * @throws IllegalArgumentException if histogram is empty or unit is not positive.
+     */
+    public static WeightedSample toWeightedSample(Histogram histogram, double unit) {
+        checkArguments(histogram, unit);
+
+        int bucketCount = 0;
+        for (HistogramIterationValue ignored : histogram.recordedValues()) {
+            bucketCount++;
+        }
+
+        double[] values = new double[bucketCount];
+        double[] weights = new double[bucketCount];
+        int i = 0;
+        for (HistogramIterationValue bucket : histogram.recordedValues()) {
+            long value = bucket.getValueIteratedTo();
+            long lowest = histogram.lowestEquivalentValue(value);
+            long highest = histogram.highestEquivalentValue(value);
+            values[i] = (lowest + highest) / 2.0 / unit;
+            weights[i] = bucket.getCountAtValueIteratedTo();
+            i++;
+        }
+
+        return WeightedSample.frequencyWeightedSample(values, weights);
+    }
+
+    /**
+     * Builds sorted unweighted sample of given size approximating histogram: values are quantiles
+     * {@code (k + 0.5) / size} of distribution spreading every bucket count uniformly over its range.
+     * If size equals total count, every bucket gets exactly as many values as it has recorded.
+     *
+     * @param histogram histogram to convert, must not be modified concurrently.
+     * @param size      number of values to produce.
+     * @param unit      divisor of histogram values.
+     * @return sorted array of values.
+     * @throws IllegalArgumentException if histogram is empty, size or unit is not positive.
+     */
+    public static double[] toQuantileValues(Histogram histogram, int size, double unit) {
+        checkArguments(histogram, unit);
+        if (size <= 0) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+
+        double total = histogram.getTotalCount();
+        double[] values = new double[size];
+        double cumulative = 0;
+        int k = 0;
+
+        for (HistogramIterationValue bucket : histogram.recordedValues()) {
+            long value = bucket.getValueIteratedTo();
+            double lower = histogram.lowestEquivalentValue(value);
+            double width = histogram.sizeOfEquivalentValueRange(value);
+            double count = bucket.getCountAtValueIteratedTo();
+
+            double rank = (k + 0.5) * total / size;
+            while (k < size && rank < cumulative + count) {
+                values[k++] = (lower + (rank - cumulative) / count * width) / unit;
+                rank = (k + 0.5) * total / size;
+            }
+            cumulative += count;
+        }
+
+        return values;
+    }
+
+    private static void checkArguments(Histogram histogram, double unit) {
+        if (histogram.getTotalCount() == 0) {
+            throw new IllegalArgumentException("Histogram is empty");
+        }
+        if (!(unit > 0)) {
+            throw new IllegalArgumentException("Unit must be positive");
+        }
+    }
+}
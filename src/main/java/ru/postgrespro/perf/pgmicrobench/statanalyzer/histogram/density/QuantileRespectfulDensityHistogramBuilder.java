@@ -1,7 +1,5 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.density;
 
-import lombok.Getter;
-import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.HarrellDavisQuantileEstimator;
@@ -13,24 +11,59 @@ import ru.postgrespro.perf.pgmicrobench.statanalyzer.sequences.ArithmeticProgres
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 import java.util.stream.DoubleStream;
 
 
 /**
  * Builder for constructing {@link DensityHistogram} where bins respect quantiles of given sample.
- * This class follows Singleton pattern, and histogram can be created using quantile estimators.
+ * Shared default instance is available via {@link #getInstance()}, custom quantile estimator
+ * and fork-join pool for parallel quantile evaluation can be set through constructors.
  */
 
-@NoArgsConstructor(staticName = "getInstance")
 public class QuantileRespectfulDensityHistogramBuilder implements IDensityHistogramBuilder {
 
-    @Getter
     private static final QuantileRespectfulDensityHistogramBuilder INSTANCE =
-            new QuantileRespectfulDensityHistogramBuilder();
+            new QuantileRespectfulDensityHistogramBuilder(null);
+
+    private final IQuantileEstimator quantileEstimator;
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructs builder using given quantile estimator by default.
+     *
+     * @param quantileEstimator {@link IQuantileEstimator} to use. If {@code null},
+     *                          {@link HarrellDavisQuantileEstimator} is used.
+     */
+    public QuantileRespectfulDensityHistogramBuilder(IQuantileEstimator quantileEstimator) {
+        this(quantileEstimator, null);
+    }
+
+    /**
+     * Constructs builder evaluating bin quantiles in parallel.
+     *
+     * @param quantileEstimator {@link IQuantileEstimator} to use. If {@code null},
+     *                          {@link HarrellDavisQuantileEstimator} is used.
+     * @param pool              pool to evaluate quantiles in. If {@code null}, quantiles are evaluated
+     *                          sequentially in calling thread.
+     */
+    public QuantileRespectfulDensityHistogramBuilder(IQuantileEstimator quantileEstimator, ForkJoinPool pool) {
+        this.quantileEstimator = quantileEstimator;
+        this.pool = pool;
+    }
+
+    /**
+     * Returns builder using {@link HarrellDavisQuantileEstimator}.
+     *
+     * @return default {@code QuantileRespectfulDensityHistogramBuilder}.
+     */
+    public static QuantileRespectfulDensityHistogramBuilder getInstance() {
+        return INSTANCE;
+    }
 
     /**
-     * Builds {@link DensityHistogram} with specified number of bins using default quantile estimator.
+     * Builds {@link DensityHistogram} with specified number of bins using builder's quantile estimator.
      *
      * @param sample   {@link Sample} from which histogram is built. Must not be {@code null}.
      * @param binCount number of bins to create. Must be greater than 1.
@@ -39,7 +72,7 @@ public class QuantileRespectfulDensityHistogramBuilder implements IDensityHistog
      */
     @Override
     public DensityHistogram build(WeightedSample sample, int binCount) {
-        return build(sample, binCount, null);
+        return build(sample, binCount, quantileEstimator);
     }
 
     /**
@@ -75,7 +108,9 @@ public class QuantileRespectfulDensityHistogramBuilder implements IDensityHistog
                 .boxed()
                 .collect(Collectors.toList());
 
-        double[] quantiles = quantileEstimator.quantiles(sample, probabilities);
+        double[] quantiles = pool != null
+                ? quantileEstimator.quantiles(sample, probabilities, pool)
+                : quantileEstimator.quantiles(sample, probabilities);
 
         List<DensityHistogramBin> bins = new ArrayList<>(binCount);
         for (int i = 0; i < binCount; i++) {
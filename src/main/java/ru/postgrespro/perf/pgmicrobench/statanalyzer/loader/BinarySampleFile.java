@@ -0,0 +1,290 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
+
+import lombok.Getter;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Compact binary file of latency sample, read by memory mapping instead of parsing text.
+ *
+ * <p>Layout, all numbers are little-endian:
+ * <pre>
+ *  0  int    magic "PGSB"
+ *  4  short  version
+ *  6  byte   encoding, ordinal of {@link SampleEncoding}
+ *  7  byte   flags, bit 0 is set if values are stored in ascending order
+ *  8  byte   unit, ordinal of {@link LatencyUnit}
+ *  9  7 bytes reserved
+ * 16  long   count
+ * 24  double min
+ * 32  double max
+ * 40  payload
+ * </pre>
+ * Samples stored in ascending order are wrapped by {@link #toSample()} without sorting,
+ * as {@link Sample} reuses already sorted value array.
+ */
+
+@Getter
+public final class BinarySampleFile {
+    public static final int MAGIC = 'P' | 'G' << 8 | 'S' << 16 | 'B' << 24;
+    public static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 40;
+    private static final int FLAG_SORTED = 1;
+    private static final int MAX_COUNT = Integer.MAX_VALUE - 8;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int WINDOW_SIZE = 1 << 30;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+    private final SampleEncoding encoding;
+    private final LatencyUnit unit;
+    private final boolean sorted;
+    private final double min;
+    private final double max;
+    /**
+     * Decoded values, shared with samples created by {@link #toSample()} and must not be modified.
+     */
+    private final double[] valueArray;
+
+    private BinarySampleFile(SampleEncoding encoding, LatencyUnit unit, boolean sorted,
+                             double min, double max, double[] valueArray) {
+        this.encoding = encoding;
+        this.unit = unit;
+        this.sorted = sorted;
+        this.min = min;
+        this.max = max;
+        this.valueArray = valueArray;
+    }
+
+    /**
+     * Returns number of values in file.
+     *
+     * @return count of values.
+     */
+    public int getCount() {
+        return valueArray.length;
+    }
+
+    /**
+     * Creates sample backed by values of this file, values are not copied.
+     *
+     * @return sample of file values.
+     * @throws IllegalArgumentException if file is empty.
+     */
+    public Sample toSample() {
+        return Sample.wrap(valueArray);
+    }
+
+    /**
+     * Reads binary sample file.
+     *
+     * @param path file to read.
+     * @return decoded file.
+     * @throws IOException if file can't be read or is not valid sample file.
+     */
+    public static BinarySampleFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("File is too short to be sample file: " + path);
+            }
+
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC) {
+                throw new IOException("Not a sample file: " + path);
+            }
+            if (header.getShort(4) != VERSION) {
+                throw new IOException("Unsupported sample file version " + header.getShort(4) + ": " + path);
+            }
+            SampleEncoding encoding = byOrdinal(SampleEncoding.values(), header.get(6), path);
+            boolean sorted = (header.get(7) & FLAG_SORTED) != 0;
+            LatencyUnit unit = byOrdinal(LatencyUnit.values(), header.get(8), path);
+            long count = header.getLong(16);
+            if (count < 0 || count > MAX_COUNT) {
+                throw new IOException("Invalid value count " + count + ": " + path);
+            }
+
+            double[] values = new double[(int) count];
+            if (encoding == SampleEncoding.DOUBLE) {
+                readDoubles(channel, values, path);
+            } else {
+                readDeltaNanos(channel, values, unit.getNanosPerUnit(), path);
+            }
+
+            return new BinarySampleFile(encoding, unit, sorted, header.getDouble(24), header.getDouble(32), values);
+        }
+    }
+
+    /**
+     * Writes values to binary sample file.
+     *
+     * @param path     file to write, replaced if exists.
+     * @param values   sample values in given unit.
+     * @param unit     unit of values.
+     * @param encoding encoding of values.
+     * @param sort     whether values should be stored in ascending order.
+     * @throws IOException              if file can't be written.
+     * @throws IllegalArgumentException if values are too many, or are not finite or out of range for {@code DELTA_NANOS}.
+     */
+    public static void write(Path path, double[] values, LatencyUnit unit, SampleEncoding encoding, boolean sort)
+            throws IOException {
+        if (values.length > MAX_COUNT) {
+            throw new IllegalArgumentException("Too many values: " + values.length);
+        }
+        double[] stored = values;
+        if (sort) {
+            stored = values.clone();
+            Arrays.sort(stored);
+        }
+
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : stored) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC)
+                .putShort(VERSION)
+                .put((byte) encoding.ordinal())
+                .put((byte) (sort ? FLAG_SORTED : 0))
+                .put((byte) unit.ordinal())
+                .put(new byte[7])
+                .putLong(stored.length)
+                .putDouble(min)
+                .putDouble(max);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (encoding == SampleEncoding.DOUBLE) {
+                for (double value : stored) {
+                    if (buffer.remaining() < Double.BYTES) {
+                        flush(channel, buffer);
+                    }
+                    buffer.putDouble(value);
+                }
+            } else {
+                double nanosPerUnit = unit.getNanosPerUnit();
+                long previous = 0;
+                for (double value : stored) {
+                    long nanos = toNanos(value, nanosPerUnit);
+                    if (buffer.remaining() < MAX_VARINT_BYTES) {
+                        flush(channel, buffer);
+                    }
+                    long delta = nanos - previous;
+                    putVarLong(buffer, (delta << 1) ^ (delta >> 63));
+                    previous = nanos;
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Converts text sample file to binary one.
+     *
+     * @param textFile   source text file.
+     * @param binaryFile target binary file, replaced if exists.
+     * @param reader     reader of text file, e.g. with selected column.
+     * @param unit       unit of values in text file.
+     * @param encoding   encoding of values.
+     * @param sort       whether values should be stored in ascending order.
+     * @throws IOException if any of files can't be accessed.
+     */
+    public static void convert(Path textFile, Path binaryFile, TextSampleReader reader,
+                               LatencyUnit unit, SampleEncoding encoding, boolean sort) throws IOException {
+        write(binaryFile, reader.read(textFile).toArray(), unit, encoding, sort);
+    }
+
+    private static void readDoubles(FileChannel channel, double[] values, Path path) throws IOException {
+        if (channel.size() < HEADER_SIZE + (long) values.length * Double.BYTES) {
+            throw new IOException("Sample file is truncated: " + path);
+        }
+
+        int maxWindowValues = WINDOW_SIZE / Double.BYTES;
+        for (int offset = 0; offset < values.length; offset += maxWindowValues) {
+            int length = Math.min(maxWindowValues, values.length - offset);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + (long) offset * Double.BYTES, (long) length * Double.BYTES);
+            window.order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values, offset, length);
+        }
+    }
+
+    private static void readDeltaNanos(FileChannel channel, double[] values, double nanosPerUnit, Path path)
+            throws IOException {
+        long fileSize = channel.size();
+        long position = HEADER_SIZE;
+        long nanos = 0;
+        int i = 0;
+
+        while (i < values.length) {
+            int length = (int) Math.min(WINDOW_SIZE, fileSize - position);
+            boolean last = position + length == fileSize;
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+
+            try {
+                while (i < values.length && (last || window.remaining() >= MAX_VARINT_BYTES)) {
+                    long zigzag = getVarLong(window);
+                    nanos += (zigzag >>> 1) ^ -(zigzag & 1);
+                    values[i++] = nanos / nanosPerUnit;
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IOException("Sample file is truncated: " + path, e);
+            }
+            position += window.position();
+        }
+    }
+
+    private static long toNanos(double value, double nanosPerUnit) {
+        double nanos = Math.rint(value * nanosPerUnit);
+        if (!(Math.abs(nanos) < 0x1p62)) {
+            throw new IllegalArgumentException("Value can't be stored in nanoseconds: " + value);
+        }
+        return (long) nanos;
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long result = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static <T> T byOrdinal(T[] constants, byte ordinal, Path path) throws IOException {
+        if (ordinal < 0 || ordinal >= constants.length) {
+            throw new IOException("Unknown constant " + ordinal + " in sample file header: " + path);
+        }
+        return constants[ordinal];
+    }
+}
@@ -0,0 +1,92 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
+
+import java.util.Arrays;
+import java.util.function.DoubleConsumer;
+
+
+/**
+ * Growable buffer of primitive doubles.
+ * Used as sink for parsed latencies, so that loading values does not box them.
+ */
+
+public final class DoubleArrayBuffer implements DoubleConsumer {
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private double[] data;
+    private int size;
+
+    public DoubleArrayBuffer() {
+        this(1024);
+    }
+
+    /**
+     * Constructs empty buffer with given initial capacity.
+     *
+     * @param initialCapacity initial capacity, must be non-negative.
+     * @throws IllegalArgumentException if capacity is negative.
+     */
+    public DoubleArrayBuffer(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Capacity must be non-negative");
+        }
+        this.data = new double[initialCapacity];
+    }
+
+    /**
+     * Appends value to buffer.
+     *
+     * @param value value to append.
+     * @throws IllegalStateException if buffer can't grow any more.
+     */
+    public void add(double value) {
+        if (size == data.length) {
+            grow();
+        }
+        data[size++] = value;
+    }
+
+    @Override
+    public void accept(double value) {
+        add(value);
+    }
+
+    /**
+     * Returns value at given position.
+     *
+     * @param index position of value.
+     * @return value.
+     * @throws IndexOutOfBoundsException if index is outside [0; size).
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+        }
+        return data[index];
+    }
+
+    /**
+     * Returns number of values in buffer.
+     *
+     * @return count of values.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns copy of buffered values trimmed to size.
+     *
+     * @return new array of values.
+     */
+    public double[] toArray() {
+        return Arrays.copyOf(data, size);
+    }
+
+    private void grow() {
+        if (data.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("Buffer can't hold more than " + MAX_CAPACITY + " values");
+        }
+        long newCapacity = Math.max(16, data.length + (data.length >> 1));
+        data = Arrays.copyOf(data, (int) Math.min(newCapacity, MAX_CAPACITY));
+    }
+}
@@ -0,0 +1,18 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Time unit of latency values stored in {@link BinarySampleFile}.
+ */
+@RequiredArgsConstructor
+public enum LatencyUnit {
+    NANOSECONDS(1),
+    MICROSECONDS(1e3),
+    MILLISECONDS(1e6),
+    SECONDS(1e9);
+
+    @Getter
+    private final double nanosPerUnit;
+}
@@ -1,16 +1,20 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 
 /**
  * Class responsible for loading and managing array of latency values.
  * Provides methods to store, retrieve and query latency data.
+ * Latencies are kept in primitive array, files are read with {@link TextSampleReader}.
  */
 
 public class Loader {
-    private List<Double> latencies;
+    private double[] latencies;
 
     /**
      * Loads given list of latencies into this loader.
@@ -19,7 +23,28 @@ public class Loader {
      * @param latencies list of latency values to be loaded. Must not be {@code null}.
      */
     public void loadLatencies(List<Double> latencies) {
-        this.latencies = new ArrayList<>(latencies);
+        this.latencies = latencies.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    /**
+     * Loads latencies from text file, reading every numeric token.
+     *
+     * @param path file with latencies.
+     * @throws IOException if file can't be read.
+     */
+    public void loadLatencies(Path path) throws IOException {
+        loadLatencies(path, TextSampleReader.builder().build());
+    }
+
+    /**
+     * Loads latencies from text file with given reader, e.g. to select column or limit count of values.
+     *
+     * @param path   file with latencies.
+     * @param reader configured reader.
+     * @throws IOException if file can't be read.
+     */
+    public void loadLatencies(Path path, TextSampleReader reader) throws IOException {
+        this.latencies = reader.read(path).toArray();
     }
 
     /**
@@ -28,7 +53,7 @@ public class Loader {
      * @return count of latency values.
      */
     public int getLatencyCount() {
-        return latencies.size();
+        return latencies.length;
     }
 
     /**
@@ -38,6 +63,19 @@ public class Loader {
      * @return new list containing stored latencies.
      */
     public List<Double> getLatencies() {
-        return new ArrayList<>(latencies);
+        List<Double> result = new ArrayList<>(latencies.length);
+        for (double latency : latencies) {
+            result.add(latency);
+        }
+        return result;
+    }
+
+    /**
+     * Returns copy of stored latencies as primitive array.
+     *
+     * @return new array containing stored latencies.
+     */
+    public double[] getLatencyArray() {
+        return Arrays.copyOf(latencies, latencies.length);
     }
-}
\ No newline at end of file
+}
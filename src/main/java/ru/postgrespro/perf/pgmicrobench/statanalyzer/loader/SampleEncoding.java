@@ -0,0 +1,16 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
+
+/**
+ * Encoding of values in {@link BinarySampleFile}.
+ */
+public enum SampleEncoding {
+    /**
+     * Little-endian IEEE 754 doubles, exact.
+     */
+    DOUBLE,
+    /**
+     * Values rounded to whole nanoseconds, stored as zigzag varint deltas between neighbours.
+     * Compact for sorted samples and for latencies with limited timer resolution.
+     */
+    DELTA_NANOS
+}
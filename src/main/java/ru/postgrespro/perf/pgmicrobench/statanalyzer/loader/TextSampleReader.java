@@ -0,0 +1,292 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.loader;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.DoubleConsumer;
+
+
+/**
+ * Streaming reader of numeric values from text files, e.g. pgbench or perf latency logs and CSV files.
+ *
+ * <p>File is memory-mapped in windows of {@code mappingSize} bytes, so files larger than 2 GB
+ * are read with bounded address space. Lines are split into tokens by any run of {@code delimiters};
+ * carriage return is always treated as delimiter. Tokens are parsed directly from mapped bytes
+ * without creating strings, tokens that are not numbers (headers, comments, labels) are skipped.
+ *
+ * <p>If {@code column} is negative, every numeric token of file is read, as {@code Scanner} would do.
+ * Otherwise only token with given zero-based index is read from every line.
+ */
+
+@Getter
+@Builder
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class TextSampleReader {
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    private static final int MAX_MANTISSA_DIGITS = 18;
+    private static final int MAX_EXPONENT = 100_000;
+
+    @Builder.Default
+    private final int column = -1;
+    @Builder.Default
+    private final String delimiters = " \t,;";
+    @Builder.Default
+    private final long limit = Long.MAX_VALUE;
+    @Builder.Default
+    private final int mappingSize = 1 << 28;
+
+    /**
+     * Reads values from file into new buffer.
+     *
+     * @param path file to read.
+     * @return buffer with read values.
+     * @throws IOException if file can't be read or contains line longer than {@code mappingSize}.
+     */
+    public DoubleArrayBuffer read(Path path) throws IOException {
+        DoubleArrayBuffer buffer = new DoubleArrayBuffer();
+        read(path, buffer);
+        return buffer;
+    }
+
+    /**
+     * Streams values from file to consumer in order of their appearance.
+     *
+     * @param path     file to read.
+     * @param consumer receiver of values.
+     * @throws IOException              if file can't be read or contains line longer than {@code mappingSize}.
+     * @throws IllegalArgumentException if {@code mappingSize} is not positive or {@code limit} is negative.
+     */
+    public void read(Path path, DoubleConsumer consumer) throws IOException {
+        if (mappingSize <= 0) {
+            throw new IllegalArgumentException("Mapping size must be positive");
+        }
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be non-negative");
+        }
+
+        boolean[] isDelimiter = new boolean[256];
+        for (char c : delimiters.toCharArray()) {
+            if (c < 256) {
+                isDelimiter[c] = true;
+            }
+        }
+        isDelimiter['\r'] = true;
+        isDelimiter['\n'] = true;
+
+        State state = new State(consumer, isDelimiter);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            long position = 0;
+
+            while (position < fileSize && state.count < limit) {
+                int length = (int) Math.min(mappingSize, fileSize - position);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == fileSize;
+
+                int end = length;
+                if (!last) {
+                    end = lastLineEnd(window, length);
+                    if (end == 0) {
+                        throw new IOException("Line at offset " + position + " is longer than mapping size " + mappingSize);
+                    }
+                }
+
+                parseLines(window, end, state);
+                position += end;
+            }
+        }
+    }
+
+    private static int lastLineEnd(MappedByteBuffer window, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void parseLines(MappedByteBuffer window, int end, State state) {
+        boolean[] isDelimiter = state.isDelimiter;
+        int i = 0;
+        int tokenIndex = 0;
+
+        while (i < end) {
+            byte c = window.get(i);
+            if (c == '\n') {
+                tokenIndex = 0;
+                i++;
+                continue;
+            }
+            if (isDelimiter[c & 0xFF]) {
+                i++;
+                continue;
+            }
+
+            int tokenStart = i;
+            while (i < end && !isDelimiter[window.get(i) & 0xFF]) {
+                i++;
+            }
+
+            if (column < 0 || tokenIndex == column) {
+                double value = parseDouble(window, tokenStart, i, state);
+                if (!Double.isNaN(value) || state.parsedNaN) {
+                    state.consumer.accept(value);
+                    if (++state.count >= limit) {
+                        return;
+                    }
+                }
+            }
+            tokenIndex++;
+        }
+    }
+
+    /**
+     * Parses decimal number from bytes [start; end). Values with at most 18 significant digits and
+     * decimal exponent within [-22; 22] are converted with single correctly rounded operation,
+     * other values are delegated to {@link Double#parseDouble(String)}.
+     *
+     * @return parsed value, or {@code NaN} with {@code state.parsedNaN == false} if token is not a number.
+     */
+    private static double parseDouble(MappedByteBuffer window, int start, int end, State state) {
+        state.parsedNaN = false;
+        int i = start;
+        boolean negative = false;
+        byte c = window.get(i);
+        if (c == '-' || c == '+') {
+            negative = c == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean seenDigit = false;
+        boolean exact = true;
+
+        for (; i < end; i++) {
+            c = window.get(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            seenDigit = true;
+            if (mantissa != 0 || c != '0') {
+                if (digits < MAX_MANTISSA_DIGITS) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+                } else {
+                    exact = false;
+                }
+            }
+        }
+        if (i < end && window.get(i) == '.') {
+            for (i++; i < end; i++) {
+                c = window.get(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                seenDigit = true;
+                if (mantissa != 0 || c != '0') {
+                    if (digits < MAX_MANTISSA_DIGITS) {
+                        mantissa = mantissa * 10 + (c - '0');
+                        digits++;
+                    } else {
+                        exact = false;
+                    }
+                }
+                exponent--;
+            }
+        }
+        if (seenDigit && i < end && (window.get(i) == 'e' || window.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (window.get(i) == '-' || window.get(i) == '+')) {
+                negativeExponent = window.get(i) == '-';
+                i++;
+            }
+            int expStart = i;
+            int explicitExponent = 0;
+            for (; i < end; i++) {
+                c = window.get(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (explicitExponent < MAX_EXPONENT) {
+                    explicitExponent = explicitExponent * 10 + (c - '0');
+                }
+            }
+            if (i == expStart) {
+                return notANumber(state);
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (!seenDigit || i != end) {
+            return slowParse(window, start, end, state);
+        }
+        if (mantissa == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (!exact || mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+            return slowParse(window, start, end, state);
+        }
+
+        double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(MappedByteBuffer window, int start, int end, State state) {
+        int first = window.get(start) == '-' || window.get(start) == '+' ? start + 1 : start;
+        if (first >= end) {
+            return notANumber(state);
+        }
+        byte c = window.get(first);
+        if (!(c >= '0' && c <= '9' || c == '.' || c == 'N' || c == 'I')) {
+            return notANumber(state);
+        }
+
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = window.get(start + i);
+        }
+        try {
+            double value = Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+            state.parsedNaN = Double.isNaN(value);
+            return value;
+        } catch (NumberFormatException e) {
+            return notANumber(state);
+        }
+    }
+
+    private static double notANumber(State state) {
+        state.parsedNaN = false;
+        return Double.NaN;
+    }
+
+    /**
+     * Mutable state of single {@link #read(Path, DoubleConsumer)} call.
+     */
+    private static final class State {
+        private final DoubleConsumer consumer;
+        private final boolean[] isDelimiter;
+        private long count;
+        private boolean parsedNaN;
+
+        private State(DoubleConsumer consumer, boolean[] isDelimiter) {
+            this.consumer = consumer;
+            this.isDelimiter = isDelimiter;
+        }
+    }
+}
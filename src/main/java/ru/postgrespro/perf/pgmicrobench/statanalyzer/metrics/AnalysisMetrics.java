@@ -0,0 +1,146 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics;
+
+import com.sun.management.ThreadMXBean;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+
+/**
+ * Thread-safe recorder of {@link StageMetrics} for single analysis.
+ * Stage names are hierarchical paths, e.g. {@code modeReports/mode[0]/fit[LOGNORMAL]}.
+ */
+public class AnalysisMetrics {
+    private static final java.lang.management.ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final ThreadMXBean ALLOCATIONS = THREADS instanceof ThreadMXBean ? (ThreadMXBean) THREADS : null;
+
+    private final List<StageMetrics> stages = new ArrayList<>();
+    private final IMetricsListener listener;
+
+    public AnalysisMetrics() {
+        this(null);
+    }
+
+    /**
+     * Constructs recorder forwarding every stage to listener.
+     *
+     * @param listener listener of stages, may be {@code null}.
+     */
+    public AnalysisMetrics(IMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Runs stage in current thread and records its metrics, also if it fails.
+     *
+     * @param stage  name of stage.
+     * @param action stage body.
+     * @param <T>    type of stage result.
+     * @return result of action.
+     */
+    public <T> T measure(String stage, Supplier<T> action) {
+        long evaluations = PgOptimizer.getThreadEvaluations();
+        long allocated = allocatedBytes();
+        long cpu = cpuNanos();
+        long wall = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long wallEnd = System.nanoTime();
+            long cpuEnd = cpuNanos();
+            long allocatedEnd = allocatedBytes();
+            record(new StageMetrics(stage, Thread.currentThread().getName(),
+                    wallEnd - wall,
+                    cpu < 0 ? -1 : cpuEnd - cpu,
+                    allocated < 0 ? -1 : allocatedEnd - allocated,
+                    PgOptimizer.getThreadEvaluations() - evaluations));
+        }
+    }
+
+    /**
+     * Runs stage without result in current thread and records its metrics.
+     *
+     * @param stage  name of stage.
+     * @param action stage body.
+     */
+    public void measure(String stage, Runnable action) {
+        measure(stage, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Starts asynchronous stage and records its metrics when returned future completes, also exceptionally.
+     * Stage may run in many threads, so only its wall time is known; CPU time, allocated bytes
+     * and evaluations are {@code -1}, they are recorded by synchronous stages inside it.
+     *
+     * @param stage  name of stage.
+     * @param action starts stage body and returns its future.
+     * @param <T>    type of stage result.
+     * @return future completed after metrics of stage are recorded.
+     */
+    public <T> CompletableFuture<T> measureAsync(String stage, Supplier<CompletableFuture<T>> action) {
+        long wall = System.nanoTime();
+        CompletableFuture<T> future;
+        try {
+            future = action.get();
+        } catch (RuntimeException | Error e) {
+            recordAsync(stage, wall);
+            throw e;
+        }
+        return future.whenComplete((result, error) -> recordAsync(stage, wall));
+    }
+
+    /**
+     * Returns recorded stages in order of completion.
+     *
+     * @return copy of recorded stages.
+     */
+    public synchronized List<StageMetrics> getStages() {
+        return new ArrayList<>(stages);
+    }
+
+    /**
+     * Returns JSON array of recorded stages.
+     *
+     * @return JSON representation.
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder("[");
+        for (StageMetrics stage : getStages()) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            sb.append(stage.toJson());
+        }
+        return sb.append(']').toString();
+    }
+
+    private void record(StageMetrics metrics) {
+        synchronized (this) {
+            stages.add(metrics);
+        }
+        if (listener != null) {
+            listener.onStage(metrics);
+        }
+    }
+
+    private void recordAsync(String stage, long wall) {
+        record(new StageMetrics(stage, Thread.currentThread().getName(), System.nanoTime() - wall, -1, -1, -1));
+    }
+
+    private static long cpuNanos() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long allocatedBytes() {
+        return ALLOCATIONS != null && ALLOCATIONS.isThreadAllocatedMemoryEnabled()
+                ? ALLOCATIONS.getThreadAllocatedBytes(Thread.currentThread().getId())
+                : -1;
+    }
+}
@@ -0,0 +1,10 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics;
+
+/**
+ * Receives metrics of every finished analysis stage, e.g. to export them to monitoring.
+ * May be called concurrently from pool threads.
+ */
+@FunctionalInterface
+public interface IMetricsListener {
+    void onStage(StageMetrics metrics);
+}
@@ -0,0 +1,47 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics;
+
+import lombok.Data;
+
+import java.util.Locale;
+
+
+/**
+ * Resources spent by single stage of analysis. CPU time, allocated bytes and optimizer
+ * evaluations are counted for thread which executed stage; {@code -1} means that JVM
+ * doesn't support measurement or stage is asynchronous, see {@link AnalysisMetrics#measureAsync}.
+ */
+@Data
+public class StageMetrics {
+    private final String stage;
+    private final String thread;
+    private final long wallNanos;
+    private final long cpuNanos;
+    private final long allocatedBytes;
+    private final long evaluations;
+
+    /**
+     * Returns JSON object with all metrics.
+     *
+     * @return JSON representation.
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT,
+                "{\"stage\":%s,\"thread\":%s,\"wallNanos\":%d,\"cpuNanos\":%d,\"allocatedBytes\":%d,\"evaluations\":%d}",
+                quote(stage), quote(thread), wallNanos, cpuNanos, allocatedBytes, evaluations);
+    }
+
+    static String quote(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
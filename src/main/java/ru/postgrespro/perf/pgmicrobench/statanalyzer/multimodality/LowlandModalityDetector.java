@@ -23,11 +23,22 @@ public class LowlandModalityDetector {
     private final double sensitivity;
     private final double precision;
     private final boolean diagnostics;
+    private final IDensityHistogramBuilder densityHistogramBuilder;
 
     /**
      * Detects modality patterns from sample using density histogram.
      */
     public LowlandModalityDetector(double sensitivity, double precision, boolean diagnostics) {
+        this(sensitivity, precision, diagnostics, QuantileRespectfulDensityHistogramBuilder.getInstance());
+    }
+
+    /**
+     * Detects modality patterns from sample using density histogram built by given builder.
+     *
+     * @param densityHistogramBuilder builder used by {@link #detectModes(WeightedSample)}.
+     */
+    public LowlandModalityDetector(double sensitivity, double precision, boolean diagnostics,
+                                   IDensityHistogramBuilder densityHistogramBuilder) {
         if (sensitivity < 0 || sensitivity > 1) {
             throw new IllegalArgumentException("Sensitivity must be between 0 and 1.");
         }
@@ -37,6 +48,7 @@ public class LowlandModalityDetector {
         this.sensitivity = sensitivity;
         this.precision = precision;
         this.diagnostics = diagnostics;
+        this.densityHistogramBuilder = densityHistogramBuilder;
     }
 
     /**
@@ -47,7 +59,7 @@ public class LowlandModalityDetector {
      * @throws IllegalArgumentException if sample is null or contains less than two unique elements.
      */
     public ModalityData detectModes(WeightedSample sample) {
-        return detectModes(sample, QuantileRespectfulDensityHistogramBuilder.getInstance());
+        return detectModes(sample, densityHistogramBuilder);
     }
 
     /**
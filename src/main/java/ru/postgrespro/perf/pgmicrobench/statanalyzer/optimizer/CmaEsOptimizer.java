@@ -0,0 +1,477 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
+
+import org.apache.commons.math3.analysis.MultivariateFunction;
+import org.apache.commons.math3.random.Well512a;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.ParallelChunks;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * CMA-ES with diagonal covariance matrix, bounds are handled by repairing points and penalizing
+ * the distance to repaired point. Follows commons-math {@code CMAESOptimizer} as previously configured
+ * by {@link PgOptimizer} (diagonal-only mode, stop fitness {@code 1e-4}, {@code Well512a(42)}),
+ * but keeps whole state in arrays allocated once per dimension: instance is reused for any number of runs
+ * and run allocates nothing per evaluation. Not thread-safe.
+ *
+ * <p>Population may be evaluated in parallel on supplied executor. Every point is evaluated independently
+ * and listener is notified from calling thread in population order, so results are exactly the same
+ * as of sequential run.
+ */
+final class CmaEsOptimizer {
+    private static final int SEED = 42;
+    private static final int FEASIBLE_RETRIES = 5;
+    private static final double STOP_FITNESS = 1e-4;
+    private static final double STOP_TOL_FUN = 1e-12;
+    private static final double STOP_TOL_HIST_FUN = 1e-13;
+    private static final double MAX_CONDITION = 1e7;
+
+    private final int dimension;
+    private final int lambda;
+    private final int mu;
+    private final int maxIterations;
+    private final int maxEvaluations;
+    private final double[] weights;
+    private final double mueff;
+    private final double cc;
+    private final double cs;
+    private final double damps;
+    private final double ccov1;
+    private final double ccovmu;
+    private final double chiN;
+
+    private final Well512a random = new Well512a(SEED);
+    private final double[] xmean;
+    private final double[] xold;
+    private final double[] zmean;
+    private final double[] diagD;
+    private final double[] diagC;
+    private final double[] pc;
+    private final double[] ps;
+    private final double[] best;
+    private final double[][] arz;
+    private final double[][] arx;
+    private final double[][] repaired;
+    private final double[] values;
+    private final double[] penalties;
+    private final double[] fitness;
+    private final int[] order;
+    private final double[] fitnessHistory;
+    private final double[] bestValues;
+
+    /**
+     * Objective instances not used by any thread, created on demand, so their number is maximal number
+     * of threads evaluating population at once.
+     */
+    private final ArrayDeque<MultivariateFunction> idleFunctions = new ArrayDeque<>();
+    private Supplier<MultivariateFunction> function;
+    private int parallelism;
+    private Executor executor;
+    private int evaluations;
+    private double step;
+
+    CmaEsOptimizer(int dimension, int lambda, int maxIterations, int maxEvaluations) {
+        this.dimension = dimension;
+        this.lambda = lambda;
+        this.mu = lambda / 2;
+        this.maxIterations = maxIterations;
+        this.maxEvaluations = maxEvaluations;
+
+        weights = new double[mu];
+        double logMu2 = Math.log(mu + 0.5);
+        double sumW = 0;
+        double sumWq = 0;
+        for (int i = 0; i < mu; i++) {
+            weights[i] = logMu2 - Math.log(i + 1);
+            sumW += weights[i];
+            sumWq += weights[i] * weights[i];
+        }
+        for (int i = 0; i < mu; i++) {
+            weights[i] /= sumW;
+        }
+        mueff = sumW * sumW / sumWq;
+
+        cc = (4 + mueff / dimension) / (dimension + 4 + 2 * mueff / dimension);
+        cs = (mueff + 2) / (dimension + mueff + 3.);
+        damps = (1 + 2 * Math.max(0, Math.sqrt((mueff - 1) / (dimension + 1)) - 1))
+                * Math.max(0.3, 1 - dimension / (1e-6 + maxIterations)) + cs;
+        double ccov1Full = 2 / ((dimension + 1.3) * (dimension + 1.3) + mueff);
+        double ccovmuFull = Math.min(1 - ccov1Full,
+                2 * (mueff - 2 + 1 / mueff) / ((dimension + 2) * (dimension + 2) + mueff));
+        ccov1 = Math.min(1, ccov1Full * (dimension + 1.5) / 3);
+        ccovmu = Math.min(1 - ccov1Full, ccovmuFull * (dimension + 1.5) / 3);
+        chiN = Math.sqrt(dimension) * (1 - 1 / (4. * dimension) + 1 / (21. * dimension * dimension));
+
+        xmean = new double[dimension];
+        xold = new double[dimension];
+        zmean = new double[dimension];
+        diagD = new double[dimension];
+        diagC = new double[dimension];
+        pc = new double[dimension];
+        ps = new double[dimension];
+        best = new double[dimension];
+        arz = new double[lambda][dimension];
+        arx = new double[lambda][dimension];
+        repaired = new double[lambda][dimension];
+        values = new double[lambda];
+        penalties = new double[lambda];
+        fitness = new double[lambda];
+        order = new int[lambda];
+        fitnessHistory = new double[10 + (int) (3 * 10 * dimension / (double) lambda)];
+        bestValues = new double[maxEvaluations / lambda + 2];
+    }
+
+    /**
+     * Minimizes function starting from given point.
+     *
+     * @param function    factory of objective instances, each instance is called from one thread at a time;
+     *                    objective gets points inside bounds and must not keep them.
+     * @param parallelism maximal number of threads evaluating population.
+     * @param executor    executor evaluating population in parallel, {@code null} to evaluate in calling thread.
+     * @param start    start point.
+     * @param sigma    initial step for every coordinate.
+     * @param lower    lower bounds.
+     * @param upper    upper bounds.
+     * @param listener optional listener of progress, may be {@code null}.
+     * @param counter  single-element counter incremented on every evaluation.
+     * @return best point with diagnostics, evaluation budget exhaustion is reported by termination reason.
+     */
+    OptimizationResult minimize(Supplier<MultivariateFunction> function, int parallelism, Executor executor,
+                                double[] start, double[] sigma, double[] lower, double[] upper,
+                                IOptimizationListener listener, long[] counter) {
+        this.function = function;
+        this.parallelism = parallelism;
+        this.executor = executor;
+        try {
+            return minimize(start, sigma, lower, upper, listener, counter);
+        } finally {
+            this.function = null;
+            this.executor = null;
+            synchronized (idleFunctions) {
+                idleFunctions.clear();
+            }
+        }
+    }
+
+    private OptimizationResult minimize(double[] start, double[] sigma, double[] lower, double[] upper,
+                                        IOptimizationListener listener, long[] counter) {
+        long startTime = System.nanoTime();
+        random.setSeed(SEED);
+        evaluations = 0;
+
+        step = 0;
+        for (double s : sigma) {
+            step = Math.max(step, s);
+        }
+        double stopTolUpX = 1e3 * step;
+        double stopTolX = 1e-11 * step;
+        for (int i = 0; i < dimension; i++) {
+            xmean[i] = start[i];
+            diagD[i] = sigma[i] / step;
+            diagC[i] = diagD[i] * diagD[i];
+            pc[i] = 0;
+            ps[i] = 0;
+        }
+        Arrays.fill(fitnessHistory, Double.MAX_VALUE);
+
+        double penalty = repair(start, lower, upper, best);
+        MultivariateFunction startFunction = acquireFunction();
+        double bestValue = startFunction.value(best) + penalty;
+        releaseFunction(startFunction);
+        notifyEvaluation(best, bestValue, listener, counter);
+        push(bestValue);
+        bestValues[0] = bestValue;
+
+        int iterations = 0;
+        TerminationReason reason = TerminationReason.MAX_ITERATIONS;
+        generationLoop:
+        for (int generation = 1; generation <= maxIterations; generation++) {
+            sample(lower, upper);
+            int count = Math.min(lambda, maxEvaluations - evaluations);
+            for (int k = 0; k < count; k++) {
+                penalties[k] = repair(arx[k], lower, upper, repaired[k]);
+            }
+            evaluatePopulation(count);
+            for (int k = 0; k < count; k++) {
+                notifyEvaluation(repaired[k], values[k], listener, counter);
+            }
+            if (count < lambda) {
+                reason = TerminationReason.MAX_EVALUATIONS;
+                break;
+            }
+
+            double maxValue = Double.NEGATIVE_INFINITY;
+            double minValue = Double.MAX_VALUE;
+            for (double value : values) {
+                if (value > maxValue) {
+                    maxValue = value;
+                }
+                if (value < minValue) {
+                    minValue = value;
+                }
+            }
+            double valueRange = maxValue - minValue;
+            for (int k = 0; k < lambda; k++) {
+                fitness[k] = values[k] + penalties[k] * valueRange;
+            }
+            sortOrder();
+
+            // recombination of mu best points
+            for (int i = 0; i < dimension; i++) {
+                xold[i] = xmean[i];
+                double x = 0;
+                double z = 0;
+                for (int j = 0; j < mu; j++) {
+                    x += arx[order[j]][i] * weights[j];
+                    z += arz[order[j]][i] * weights[j];
+                }
+                xmean[i] = x;
+                zmean[i] = z;
+            }
+
+            // evolution paths
+            double psFactor = Math.sqrt(cs * (2 - cs) * mueff);
+            double sumPs = 0;
+            for (int i = 0; i < dimension; i++) {
+                ps[i] = ps[i] * (1 - cs) + zmean[i] * psFactor;
+                sumPs += ps[i] * ps[i];
+            }
+            double normps = Math.sqrt(sumPs);
+            boolean hsig = normps / Math.sqrt(1 - Math.pow(1 - cs, 2 * generation)) / chiN
+                    < 1.4 + 2 / ((double) dimension + 1);
+            double pcFactor = Math.sqrt(cc * (2 - cc) * mueff) / step;
+            for (int i = 0; i < dimension; i++) {
+                pc[i] *= 1 - cc;
+                if (hsig) {
+                    pc[i] += (xmean[i] - xold[i]) * pcFactor;
+                }
+            }
+
+            // diagonal covariance update
+            double oldFactor = (hsig ? 0 : ccov1 * cc * (2 - cc)) + 1 - ccov1 - ccovmu;
+            for (int i = 0; i < dimension; i++) {
+                double rankMu = 0;
+                for (int j = 0; j < mu; j++) {
+                    double z = arz[order[j]][i];
+                    rankMu += z * z * weights[j];
+                }
+                diagC[i] = diagC[i] * oldFactor + pc[i] * pc[i] * ccov1 + diagC[i] * rankMu * ccovmu;
+                diagD[i] = Math.sqrt(diagC[i]);
+            }
+
+            step *= Math.exp(Math.min(1, (normps / chiN - 1) * cs / damps));
+
+            double bestFitness = fitness[order[0]];
+            double worstFitness = fitness[order[lambda - 1]];
+            if (bestValue > bestFitness) {
+                bestValue = bestFitness;
+                System.arraycopy(repaired[order[0]], 0, best, 0, dimension);
+            }
+            iterations = generation;
+            bestValues[iterations] = bestValue;
+            if (listener != null) {
+                listener.onIteration(iterations, evaluations, bestValue);
+            }
+
+            if (converged(bestFitness, worstFitness, generation, stopTolX, stopTolUpX)) {
+                reason = TerminationReason.CONVERGED;
+                break;
+            }
+
+            // flat fitness
+            double historyBest = min(fitnessHistory);
+            double historyWorst = max(fitnessHistory);
+            if (bestValue == fitness[order[(int) (0.1 + lambda / 4.)]]) {
+                step *= Math.exp(0.2 + cs / damps);
+            }
+            if (generation > 2 && Math.max(historyWorst, bestFitness) - Math.min(historyBest, bestFitness) == 0) {
+                step *= Math.exp(0.2 + cs / damps);
+            }
+            push(bestFitness);
+        }
+
+        OptimizationDiagnostics diagnostics = new OptimizationDiagnostics(evaluations, iterations,
+                Arrays.copyOf(bestValues, iterations + 1), reason, System.nanoTime() - startTime);
+        if (listener != null) {
+            listener.onFinish(diagnostics);
+        }
+        return new OptimizationResult(best.clone(), bestValue, diagnostics);
+    }
+
+    /**
+     * Samples population around mean, points outside bounds are resampled a few times.
+     */
+    private void sample(double[] lower, double[] upper) {
+        for (int r = 0; r < dimension; r++) {
+            for (int k = 0; k < lambda; k++) {
+                arz[k][r] = random.nextGaussian();
+            }
+        }
+        for (int k = 0; k < lambda; k++) {
+            for (int attempt = 0; ; attempt++) {
+                boolean feasible = true;
+                for (int i = 0; i < dimension; i++) {
+                    arx[k][i] = xmean[i] + diagD[i] * arz[k][i] * step;
+                    feasible &= arx[k][i] >= lower[i] && arx[k][i] <= upper[i];
+                }
+                if (feasible || attempt >= FEASIBLE_RETRIES) {
+                    break;
+                }
+                for (int i = 0; i < dimension; i++) {
+                    arz[k][i] = random.nextGaussian();
+                }
+            }
+        }
+    }
+
+    /**
+     * Stop criteria of CMA-ES: good enough fitness, tiny or huge steps, flat fitness history
+     * and ill-conditioned covariance.
+     */
+    private boolean converged(double bestFitness, double worstFitness, int generation,
+                              double stopTolX, double stopTolUpX) {
+        if (bestFitness < STOP_FITNESS) {
+            return true;
+        }
+
+        boolean smallSteps = true;
+        for (int i = 0; i < dimension; i++) {
+            double sqrtDiagC = Math.sqrt(diagC[i]);
+            smallSteps &= step * Math.max(Math.abs(pc[i]), sqrtDiagC) <= stopTolX;
+            if (step * sqrtDiagC > stopTolUpX) {
+                return true;
+            }
+        }
+        if (smallSteps) {
+            return true;
+        }
+
+        double historyBest = min(fitnessHistory);
+        double historyWorst = max(fitnessHistory);
+        if (generation > 2 && Math.max(historyWorst, worstFitness) - Math.min(historyBest, bestFitness) < STOP_TOL_FUN) {
+            return true;
+        }
+        if (generation > fitnessHistory.length && historyWorst - historyBest < STOP_TOL_HIST_FUN) {
+            return true;
+        }
+        return max(diagD) / min(diagD) > MAX_CONDITION;
+    }
+
+    private void notifyEvaluation(double[] point, double value, IOptimizationListener listener, long[] counter) {
+        evaluations++;
+        counter[0]++;
+        if (listener != null) {
+            listener.onEvaluation(evaluations, point, value);
+        }
+    }
+
+    /**
+     * Evaluates first points of population, split into one chunk per possible thread.
+     */
+    private void evaluatePopulation(int count) {
+        int chunks = executor == null ? 1 : Math.min(parallelism, count);
+        ParallelChunks.forEach(chunks, chunks - 1, executor, () -> new PopulationWorker(count, chunks));
+    }
+
+    private MultivariateFunction acquireFunction() {
+        synchronized (idleFunctions) {
+            MultivariateFunction objective = idleFunctions.poll();
+            if (objective != null) {
+                return objective;
+            }
+        }
+        return function.get();
+    }
+
+    private void releaseFunction(MultivariateFunction objective) {
+        synchronized (idleFunctions) {
+            idleFunctions.push(objective);
+        }
+    }
+
+    /**
+     * Clips point to bounds.
+     *
+     * @return L1 distance between point and its repaired copy.
+     */
+    private static double repair(double[] point, double[] lower, double[] upper, double[] result) {
+        double penalty = 0;
+        for (int i = 0; i < point.length; i++) {
+            double x = point[i];
+            double r = x < lower[i] ? lower[i] : Math.min(x, upper[i]);
+            result[i] = r;
+            penalty += Math.abs(x - r);
+        }
+        return penalty;
+    }
+
+    /**
+     * Stable insertion sort of population indices by fitness, population is small.
+     */
+    private void sortOrder() {
+        for (int k = 0; k < lambda; k++) {
+            int index = k;
+            int j = k;
+            while (j > 0 && Double.compare(fitness[order[j - 1]], fitness[index]) > 0) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = index;
+        }
+    }
+
+    private void push(double value) {
+        System.arraycopy(fitnessHistory, 0, fitnessHistory, 1, fitnessHistory.length - 1);
+        fitnessHistory[0] = value;
+    }
+
+    private static double min(double[] values) {
+        double min = Double.MAX_VALUE;
+        for (double value : values) {
+            if (value < min) {
+                min = value;
+            }
+        }
+        return min;
+    }
+
+    private static double max(double[] values) {
+        double max = -Double.MAX_VALUE;
+        for (double value : values) {
+            if (value > max) {
+                max = value;
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Evaluation of population chunks claimed by one thread. Objective instance is taken when first chunk
+     * is claimed and is returned before last claimed chunk is counted as done, so it is idle
+     * when population is evaluated.
+     */
+    private final class PopulationWorker implements ParallelChunks.Worker {
+        private final int count;
+        private final int chunks;
+        private final MultivariateFunction objective = acquireFunction();
+
+        private PopulationWorker(int count, int chunks) {
+            this.count = count;
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void accept(int chunk) {
+            for (int k = chunk * count / chunks; k < (chunk + 1) * count / chunks; k++) {
+                values[k] = objective.value(repaired[k]);
+            }
+        }
+
+        @Override
+        public void finish() {
+            releaseFunction(objective);
+        }
+    }
+}
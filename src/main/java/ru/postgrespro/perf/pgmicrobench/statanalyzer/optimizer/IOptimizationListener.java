@@ -0,0 +1,35 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
+
+/**
+ * Receives progress of {@link PgOptimizer} run. Methods are called from thread
+ * which runs optimization, listener shared by concurrent fits must be thread-safe.
+ */
+public interface IOptimizationListener {
+    /**
+     * Called after every objective function evaluation.
+     *
+     * @param evaluation number of evaluation, starting from 1.
+     * @param point      evaluated parameters, must not be modified.
+     * @param value      objective value.
+     */
+    default void onEvaluation(int evaluation, double[] point, double value) {
+    }
+
+    /**
+     * Called after every CMA-ES iteration, i.e. after evaluation of whole population.
+     *
+     * @param iteration   number of iteration, starting from 1.
+     * @param evaluations evaluations performed so far.
+     * @param bestValue   best objective value found so far.
+     */
+    default void onIteration(int iteration, int evaluations, double bestValue) {
+    }
+
+    /**
+     * Called once when optimization stops, including the case of exhausted evaluation budget.
+     *
+     * @param diagnostics diagnostics of the run.
+     */
+    default void onFinish(OptimizationDiagnostics diagnostics) {
+    }
+}
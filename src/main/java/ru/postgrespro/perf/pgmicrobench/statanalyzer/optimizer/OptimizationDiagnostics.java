@@ -0,0 +1,35 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
+
+import lombok.Data;
+
+
+/**
+ * Diagnostics of single {@link PgOptimizer} run. Best value trajectory contains best objective value
+ * found before first iteration (i.e. value at start point) and after every iteration.
+ */
+@Data
+public class OptimizationDiagnostics {
+    private final int evaluations;
+    private final int iterations;
+    private final double[] bestValues;
+    private final TerminationReason terminationReason;
+    private final long wallNanos;
+
+    /**
+     * Returns best objective value found.
+     *
+     * @return last value of trajectory.
+     */
+    public double getBestValue() {
+        return bestValues[bestValues.length - 1];
+    }
+
+    /**
+     * Returns average wall time of single objective function evaluation.
+     *
+     * @return nanoseconds per evaluation, {@code NaN} if nothing was evaluated.
+     */
+    public double getNanosPerEvaluation() {
+        return evaluations == 0 ? Double.NaN : (double) wallNanos / evaluations;
+    }
+}
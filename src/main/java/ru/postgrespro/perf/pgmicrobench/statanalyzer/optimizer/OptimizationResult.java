@@ -0,0 +1,14 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
+
+import lombok.Data;
+
+
+/**
+ * Parameters found by {@link PgOptimizer} with diagnostics of the run.
+ */
+@Data
+public class OptimizationResult {
+    private final double[] point;
+    private final double value;
+    private final OptimizationDiagnostics diagnostics;
+}
@@ -1,28 +1,57 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
 
 import org.apache.commons.math3.analysis.MultivariateFunction;
-import org.apache.commons.math3.optim.InitialGuess;
-import org.apache.commons.math3.optim.MaxEval;
-import org.apache.commons.math3.optim.PointValuePair;
-import org.apache.commons.math3.optim.SimpleBounds;
-import org.apache.commons.math3.optim.nonlinear.scalar.GoalType;
-import org.apache.commons.math3.optim.nonlinear.scalar.ObjectiveFunction;
-import org.apache.commons.math3.optim.nonlinear.scalar.noderiv.CMAESOptimizer;
-import org.apache.commons.math3.random.Well512a;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.Pair;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDifferentiableDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistributionEvaluator;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EdfContext;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.IDistributionTest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
 /**
  * Optimizer.
  */
 public class PgOptimizer {
-    private static final MaxEval MAX_EVAL = new MaxEval(10000);
-    private static final CMAESOptimizer.PopulationSize POPULATION_SIZE = new CMAESOptimizer.PopulationSize(25);
+    private static final int MAX_ITERATIONS = 10000;
+    private static final int MAX_EVAL = 10000;
+    private static final int POPULATION_SIZE = 25;
     private static final double WEIGHT_STEP = 0.1;
+    private static final int PROGRESSIVE_START_SIZE = 2000;
+    private static final int PROGRESSIVE_GROWTH = 4;
+    private static final double PROGRESSIVE_STEP_SCALE = 0.1;
+    private static final double PROGRESSIVE_TOLERANCE = 0.01;
+    private static final int LBFGS_MEMORY = 5;
+    private static final int LBFGS_MAX_ITERATIONS = 200;
+    private static final int LINE_SEARCH_STEPS = 40;
+    private static final double ARMIJO = 1e-4;
+    private static final double GRADIENT_TOLERANCE = 1e-9;
+    private static final double VALUE_TOLERANCE = 1e-13;
+    private static final ThreadLocal<long[]> THREAD_EVALUATIONS = ThreadLocal.withInitial(() -> new long[1]);
+    private static final ThreadLocal<Map<Integer, CmaEsOptimizer>> OPTIMIZERS = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Returns number of objective function evaluations performed by current thread so far.
+     * Difference of two readings gives evaluations spent between them.
+     *
+     * @return evaluations count of current thread.
+     */
+    public static long getThreadEvaluations() {
+        return THREAD_EVALUATIONS.get()[0];
+    }
 
     /**
      * Optimise composite distribution.
@@ -33,47 +62,87 @@ public class PgOptimizer {
      * @return parameters.
      */
     public static double[] optimize(Sample sample, PgCompositeDistribution distribution, IDistributionTest statisticEvaluator) {
-        final CMAESOptimizer optimizer = new CMAESOptimizer(
-                10000,
-                1e-4,
-                true,
-                1,
-                5,
-                new Well512a(42),
-                false,
-                null);
-        MultivariateFunction evaluationFunction = point -> {
-            PgCompositeDistribution d = distribution.newDistribution(point);
-
-            double weightSum = 0;
-            for (int i = 0; i < distribution.getSize(); i++) {
-                weightSum += point[point.length - i - 1];
-            }
-
-            return statisticEvaluator.statistic(sample, d) + Math.pow(weightSum - 1, 2);
+        return optimize(sample, distribution, statisticEvaluator, null).getPoint();
+    }
+
+    /**
+     * Optimise composite distribution and collect diagnostics of the run.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator.
+     * @param listener optional listener of progress, may be {@code null}.
+     * @return parameters with diagnostics, best point found if evaluation budget is exhausted.
+     */
+    public static OptimizationResult optimize(Sample sample, PgCompositeDistribution distribution,
+                                              IDistributionTest statisticEvaluator, IOptimizationListener listener) {
+        return optimize(sample, distribution, statisticEvaluator, listener, null);
+    }
+
+    /**
+     * Optimise composite distribution evaluating every CMA-ES population in parallel.
+     * Result does not depend on executor and is the same as of sequential run.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator, must be thread-safe.
+     * @param listener optional listener of progress, may be {@code null}, is called from calling thread.
+     * @param executor executor of population evaluation, {@code null} to evaluate in calling thread.
+     * @return parameters with diagnostics, best point found if evaluation budget is exhausted.
+     */
+    public static OptimizationResult optimize(Sample sample, PgCompositeDistribution distribution,
+                                              IDistributionTest statisticEvaluator, IOptimizationListener listener,
+                                              Executor executor) {
+        return optimize(sample, distribution, distribution.getParamArray(), 1, statisticEvaluator, listener, executor);
+    }
+
+    /**
+     * Optimise composite distribution coarse-to-fine, see {@link #optimizeProgressive(Sample, PgSimpleDistribution,
+     * IDistributionTest, IOptimizationListener, Executor)}.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator, must be thread-safe if executor is given.
+     * @param listener optional listener of refinement stages, may be {@code null}.
+     * @param executor executor of population evaluation, {@code null} to evaluate in calling thread.
+     * @return parameters with statistic on whole sample as value and diagnostics of stages.
+     */
+    public static OptimizationResult optimizeProgressive(Sample sample, PgCompositeDistribution distribution,
+                                                         IDistributionTest statisticEvaluator,
+                                                         IOptimizationListener listener, Executor executor) {
+        return optimizeProgressive(sample, distribution, statisticEvaluator, listener,
+                (stageSample, start, stepScale) -> optimize(stageSample, distribution, start, stepScale,
+                        statisticEvaluator, null, executor));
+    }
+
+    private static OptimizationResult optimize(Sample sample, PgCompositeDistribution distribution, double[] start,
+                                               double stepScale, IDistributionTest statisticEvaluator,
+                                               IOptimizationListener listener, Executor executor) {
+        EdfContext context = EdfContext.of(sample);
+        Supplier<MultivariateFunction> evaluationFunction = () -> {
+            PgDistributionEvaluator evaluator = distribution.newEvaluator();
+            double[] buffer = new double[sample.size()];
+            return point -> {
+                double weightSum = 0;
+                for (int i = 0; i < distribution.getSize(); i++) {
+                    weightSum += point[point.length - i - 1];
+                }
+
+                return statisticEvaluator.statistic(context, evaluator.setParams(point, 0), buffer)
+                        + Math.pow(weightSum - 1, 2);
+            };
         };
 
-        double[] startParam = distribution.getParamArray();
         double[] sigma = new double[distribution.getParamNumber()];
         int i = 0;
         for (; i < sigma.length - distribution.getSize(); i++) {
-            sigma[i] = 0.3;
+            sigma[i] = 0.3 * stepScale;
         }
         for (; i < sigma.length; i++) {
-            sigma[i] = WEIGHT_STEP;
+            sigma[i] = WEIGHT_STEP * stepScale;
         }
-        Pair<double[]> bounds = distribution.bounds();
-
-        PointValuePair result = optimizer.optimize(
-                MAX_EVAL,
-                POPULATION_SIZE,
-                GoalType.MINIMIZE,
-                new ObjectiveFunction(evaluationFunction),
-                new InitialGuess(startParam),
-                new CMAESOptimizer.Sigma(sigma),
-                new SimpleBounds(bounds.first, bounds.second));
 
-        return result.getPoint();
+        return minimize(evaluationFunction, start, sigma, distribution.bounds(), listener, executor);
     }
 
     /**
@@ -85,37 +154,448 @@ public class PgOptimizer {
      * @return parameters.
      */
     public static double[] optimize(Sample sample, PgSimpleDistribution distribution, IDistributionTest statisticEvaluator) {
-        final CMAESOptimizer optimizer = new CMAESOptimizer(
-                10000,
-                1e-4,
-                true,
-                1,
-                5,
-                new Well512a(42),
-                false,
-                null);
-        MultivariateFunction evaluationFunction = point -> {
-            PgDistribution d = distribution.newDistribution(point);
-            return statisticEvaluator.statistic(sample, d);
+        return optimize(sample, distribution, statisticEvaluator, null).getPoint();
+    }
+
+    /**
+     * Optimise simple distribution and collect diagnostics of the run.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator.
+     * @param listener optional listener of progress, may be {@code null}.
+     * @return parameters with diagnostics, best point found if evaluation budget is exhausted.
+     */
+    public static OptimizationResult optimize(Sample sample, PgSimpleDistribution distribution,
+                                              IDistributionTest statisticEvaluator, IOptimizationListener listener) {
+        return optimize(sample, distribution, statisticEvaluator, listener, null);
+    }
+
+    /**
+     * Optimise simple distribution evaluating every CMA-ES population in parallel.
+     * Result does not depend on executor and is the same as of sequential run.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator, must be thread-safe.
+     * @param listener optional listener of progress, may be {@code null}, is called from calling thread.
+     * @param executor executor of population evaluation, {@code null} to evaluate in calling thread.
+     * @return parameters with diagnostics, best point found if evaluation budget is exhausted.
+     */
+    public static OptimizationResult optimize(Sample sample, PgSimpleDistribution distribution,
+                                              IDistributionTest statisticEvaluator, IOptimizationListener listener,
+                                              Executor executor) {
+        return optimize(sample, distribution, distribution.getParamArray(), 1, statisticEvaluator, listener, executor);
+    }
+
+    /**
+     * Optimise simple distribution coarse-to-fine. First stage minimizes statistic on quantile-stratified
+     * subsample of {@value #PROGRESSIVE_START_SIZE} values, every next stage takes {@value #PROGRESSIVE_GROWTH}
+     * times larger subsample and starts from previous result with reduced step. After every stage statistic
+     * is evaluated on whole sample, refinement stops once it improves by less than {@value #PROGRESSIVE_TOLERANCE}
+     * relatively or whole sample is reached, so that large samples cost few full passes instead of thousands.
+     * Samples not larger than first stage and weighted samples are optimized by {@link #optimize} directly.
+     *
+     * @param sample sample.
+     * @param distribution distribution.
+     * @param statisticEvaluator statisticEvaluator, must be thread-safe if executor is given.
+     * @param listener optional listener of refinement stages, may be {@code null}.
+     * @param executor executor of population evaluation, {@code null} to evaluate in calling thread.
+     * @return parameters with statistic on whole sample as value and diagnostics of stages.
+     */
+    public static OptimizationResult optimizeProgressive(Sample sample, PgSimpleDistribution distribution,
+                                                         IDistributionTest statisticEvaluator,
+                                                         IOptimizationListener listener, Executor executor) {
+        return optimizeProgressive(sample, distribution, statisticEvaluator, listener,
+                (stageSample, start, stepScale) -> optimize(stageSample, distribution, start, stepScale,
+                        statisticEvaluator, null, executor));
+    }
+
+    private static OptimizationResult optimize(Sample sample, PgSimpleDistribution distribution, double[] start,
+                                               double stepScale, IDistributionTest statisticEvaluator,
+                                               IOptimizationListener listener, Executor executor) {
+        EdfContext context = EdfContext.of(sample);
+        Supplier<MultivariateFunction> evaluationFunction = () -> {
+            PgDistributionEvaluator evaluator = distribution.newEvaluator();
+            double[] buffer = new double[sample.size()];
+            return point -> statisticEvaluator.statistic(context, evaluator.setParams(point, 0), buffer);
         };
 
-        double[] startParam = distribution.getParamArray();
         double[] sigma = new double[distribution.getParamNumber()];
         for (int i = 0; i < sigma.length; i++) {
-            sigma[i] = 1;
+            sigma[i] = stepScale;
+        }
+
+        return minimize(evaluationFunction, start, sigma, distribution.bounds(), listener, executor);
+    }
+
+    /**
+     * Runs refinement stages of progressive optimization. Diagnostics count stages as iterations,
+     * best values are statistics on whole sample at start point and after every stage.
+     */
+    private static OptimizationResult optimizeProgressive(Sample sample, PgDistribution distribution,
+                                                          IDistributionTest statisticEvaluator,
+                                                          IOptimizationListener listener, StageOptimizer stageOptimizer) {
+        int n = sample.size();
+        if (n <= PROGRESSIVE_START_SIZE || sample instanceof WeightedSample) {
+            OptimizationResult result = stageOptimizer.optimize(sample, distribution.getParamArray(), 1);
+            if (listener != null) {
+                listener.onFinish(result.getDiagnostics());
+            }
+            return result;
+        }
+
+        long startTime = System.nanoTime();
+        EdfContext context = EdfContext.of(sample);
+        double[] buffer = new double[n];
+        double[] sorted = context.getSortedValues();
+        double[] bestPoint = distribution.getParamArray();
+        double bestValue = statisticEvaluator.statistic(context, distribution, buffer);
+        List<Double> bestValues = new ArrayList<>();
+        bestValues.add(bestValue);
+
+        int evaluations = 0;
+        int stage = 0;
+        TerminationReason reason;
+        for (int size = PROGRESSIVE_START_SIZE; ; size = (int) Math.min(n, (long) size * PROGRESSIVE_GROWTH)) {
+            Sample stageSample = size >= n ? sample : stratify(sorted, size);
+            OptimizationResult result = stageOptimizer.optimize(stageSample, bestPoint,
+                    stage == 0 ? 1 : PROGRESSIVE_STEP_SCALE);
+            evaluations += result.getDiagnostics().getEvaluations();
+            stage++;
+
+            double value = statisticEvaluator.statistic(context, distribution.newDistribution(result.getPoint()), buffer);
+            boolean stable = stage > 1 && !(value < bestValue - PROGRESSIVE_TOLERANCE * Math.abs(bestValue));
+            if (value < bestValue) {
+                bestValue = value;
+                bestPoint = result.getPoint();
+            }
+            bestValues.add(bestValue);
+            if (listener != null) {
+                listener.onIteration(stage, evaluations, bestValue);
+            }
+
+            if (stable) {
+                reason = TerminationReason.CONVERGED;
+                break;
+            }
+            if (size >= n) {
+                reason = result.getDiagnostics().getTerminationReason();
+                break;
+            }
+        }
+
+        double[] trajectory = new double[bestValues.size()];
+        for (int i = 0; i < trajectory.length; i++) {
+            trajectory[i] = bestValues.get(i);
+        }
+        OptimizationDiagnostics diagnostics = new OptimizationDiagnostics(evaluations, stage, trajectory, reason,
+                System.nanoTime() - startTime);
+        if (listener != null) {
+            listener.onFinish(diagnostics);
+        }
+        return new OptimizationResult(bestPoint, bestValue, diagnostics);
+    }
+
+    /**
+     * Takes values at midpoints of {@code size} equiprobable strata of sorted sample, so that subsample
+     * keeps shape of empirical distribution including tails.
+     */
+    private static Sample stratify(double[] sorted, int size) {
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = sorted[(int) ((2L * i + 1) * sorted.length / (2L * size))];
         }
+        return Sample.wrap(values);
+    }
+
+    /**
+     * Optimizes statistic on sample of single refinement stage.
+     */
+    @FunctionalInterface
+    private interface StageOptimizer {
+        OptimizationResult optimize(Sample sample, double[] start, double stepScale);
+    }
+
+    /**
+     * Fits distribution by maximum likelihood using L-BFGS with analytic gradient of log-likelihood.
+     * Parameters with finite bounds are optimized in log or logit coordinates, so that every step stays
+     * inside {@link PgDifferentiableDistribution#bounds()}. Converges in tens of evaluations instead of thousands for CMA-ES.
+     *
+     * @param sample sample, weights are ignored.
+     * @param distribution start point of optimization.
+     * @param listener optional listener of progress, may be {@code null}.
+     * @return parameters with negative mean log-likelihood as value and diagnostics,
+     * value is not finite if likelihood is zero at start point.
+     */
+    public static OptimizationResult maximizeLikelihood(Sample sample, PgDifferentiableDistribution distribution,
+                                                        IOptimizationListener listener) {
+        double[] values = sample.getValueArray();
         Pair<double[]> bounds = distribution.bounds();
+        double[] lower = bounds.first;
+        double[] upper = bounds.second;
+        double[] params = new double[distribution.getParamNumber()];
+        double[] paramGradient = new double[params.length];
+
+        DifferentiableFunction function = (point, gradient) -> {
+            for (int i = 0; i < point.length; i++) {
+                params[i] = toParameter(point[i], lower[i], upper[i]);
+            }
+            double logLikelihood;
+            try {
+                logLikelihood = distribution.newDistribution(params).logLikelihood(values, paramGradient);
+            } catch (IllegalArgumentException e) {
+                return Double.NaN;
+            }
+            for (int i = 0; i < point.length; i++) {
+                gradient[i] = -paramGradient[i] / values.length * parameterDerivative(point[i], lower[i], upper[i]);
+            }
+            return -logLikelihood / values.length;
+        };
+
+        double[] start = distribution.getParamArray();
+        for (int i = 0; i < start.length; i++) {
+            start[i] = fromParameter(start[i], lower[i], upper[i]);
+        }
+
+        OptimizationResult result = minimize(function, start, listener);
+        double[] point = result.getPoint();
+        for (int i = 0; i < point.length; i++) {
+            point[i] = toParameter(point[i], lower[i], upper[i]);
+        }
+        return result;
+    }
+
+    /**
+     * L-BFGS with backtracking line search satisfying Armijo condition.
+     */
+    private static OptimizationResult minimize(DifferentiableFunction function, double[] start, IOptimizationListener listener) {
+        long startTime = System.nanoTime();
+        long[] threadEvaluations = THREAD_EVALUATIONS.get();
+        int n = start.length;
+        double[][] s = new double[LBFGS_MEMORY][n];
+        double[][] y = new double[LBFGS_MEMORY][n];
+        double[] rho = new double[LBFGS_MEMORY];
+        double[] alpha = new double[LBFGS_MEMORY];
+        double[] bestValues = new double[LBFGS_MAX_ITERATIONS + 1];
+
+        double[] x = start.clone();
+        double[] g = new double[n];
+        double[] xNew = new double[n];
+        double[] gNew = new double[n];
+        double[] d = new double[n];
+
+        double f = function.value(x, g);
+        int evaluations = 1;
+        threadEvaluations[0]++;
+        if (listener != null) {
+            listener.onEvaluation(evaluations, x, f);
+        }
+        bestValues[0] = f;
+
+        int stored = 0;
+        int iteration = 0;
+        TerminationReason reason = Double.isFinite(f) ? TerminationReason.MAX_ITERATIONS : TerminationReason.LINE_SEARCH_FAILED;
+        while (reason == TerminationReason.MAX_ITERATIONS && iteration < LBFGS_MAX_ITERATIONS) {
+            if (maxAbs(g) < GRADIENT_TOLERANCE) {
+                reason = TerminationReason.CONVERGED;
+                break;
+            }
+
+            // two-loop recursion, d = -H * g
+            for (int i = 0; i < n; i++) {
+                d[i] = -g[i];
+            }
+            for (int k = stored - 1; k >= 0; k--) {
+                int j = (iteration - stored + k) % LBFGS_MEMORY;
+                alpha[j] = rho[j] * dot(s[j], d);
+                for (int i = 0; i < n; i++) {
+                    d[i] -= alpha[j] * y[j][i];
+                }
+            }
+            if (stored > 0) {
+                int last = (iteration - 1) % LBFGS_MEMORY;
+                double gamma = dot(s[last], y[last]) / dot(y[last], y[last]);
+                for (int i = 0; i < n; i++) {
+                    d[i] *= gamma;
+                }
+            }
+            for (int k = 0; k < stored; k++) {
+                int j = (iteration - stored + k) % LBFGS_MEMORY;
+                double beta = rho[j] * dot(y[j], d);
+                for (int i = 0; i < n; i++) {
+                    d[i] += (alpha[j] - beta) * s[j][i];
+                }
+            }
+
+            double slope = dot(g, d);
+            if (!(slope < 0)) {
+                for (int i = 0; i < n; i++) {
+                    d[i] = -g[i];
+                }
+                slope = dot(g, d);
+                stored = 0;
+            }
 
-        PointValuePair result = optimizer.optimize(
-                MAX_EVAL,
-                POPULATION_SIZE,
-                GoalType.MINIMIZE,
-                new ObjectiveFunction(evaluationFunction),
-                new InitialGuess(startParam),
-                new CMAESOptimizer.Sigma(sigma),
-                new SimpleBounds(bounds.first, bounds.second)
-        );
-
-        return result.getPoint();
+            double step = stored == 0 ? Math.min(1, 1 / Math.sqrt(-slope)) : 1;
+            double fNew = Double.NaN;
+            int lineSearch = 0;
+            for (; lineSearch < LINE_SEARCH_STEPS; lineSearch++) {
+                for (int i = 0; i < n; i++) {
+                    xNew[i] = x[i] + step * d[i];
+                }
+                fNew = function.value(xNew, gNew);
+                evaluations++;
+                threadEvaluations[0]++;
+                if (listener != null) {
+                    listener.onEvaluation(evaluations, xNew, fNew);
+                }
+                if (fNew <= f + ARMIJO * step * slope) {
+                    break;
+                }
+                step /= 2;
+            }
+            if (lineSearch == LINE_SEARCH_STEPS) {
+                reason = TerminationReason.LINE_SEARCH_FAILED;
+                break;
+            }
+
+            int j = iteration % LBFGS_MEMORY;
+            for (int i = 0; i < n; i++) {
+                s[j][i] = xNew[i] - x[i];
+                y[j][i] = gNew[i] - g[i];
+            }
+            double sy = dot(s[j], y[j]);
+            iteration++;
+            if (sy > 0) {
+                rho[j] = 1 / sy;
+                stored = Math.min(stored + 1, LBFGS_MEMORY);
+            } else {
+                stored = 0;
+            }
+
+            double fPrevious = f;
+            System.arraycopy(xNew, 0, x, 0, n);
+            System.arraycopy(gNew, 0, g, 0, n);
+            f = fNew;
+            bestValues[iteration] = f;
+            if (listener != null) {
+                listener.onIteration(iteration, evaluations, f);
+            }
+
+            if (fPrevious - f <= VALUE_TOLERANCE * Math.max(1, Math.abs(f))) {
+                reason = TerminationReason.CONVERGED;
+            }
+        }
+
+        OptimizationDiagnostics diagnostics = new OptimizationDiagnostics(evaluations, iteration,
+                Arrays.copyOf(bestValues, iteration + 1), reason, System.nanoTime() - startTime);
+        if (listener != null) {
+            listener.onFinish(diagnostics);
+        }
+        return new OptimizationResult(x, f, diagnostics);
+    }
+
+    private static double toParameter(double t, double lower, double upper) {
+        boolean hasLower = Double.isFinite(lower);
+        boolean hasUpper = Double.isFinite(upper);
+        if (hasLower && hasUpper) {
+            return lower + (upper - lower) / (1 + Math.exp(-t));
+        } else if (hasLower) {
+            return lower + Math.exp(t);
+        } else if (hasUpper) {
+            return upper - Math.exp(t);
+        }
+        return t;
+    }
+
+    private static double fromParameter(double p, double lower, double upper) {
+        boolean hasLower = Double.isFinite(lower);
+        boolean hasUpper = Double.isFinite(upper);
+        if (hasLower && hasUpper) {
+            double u = Math.min(1 - 1e-12, Math.max(1e-12, (p - lower) / (upper - lower)));
+            return Math.log(u / (1 - u));
+        } else if (hasLower) {
+            return Math.log(Math.max(p - lower, 1e-12));
+        } else if (hasUpper) {
+            return Math.log(Math.max(upper - p, 1e-12));
+        }
+        return p;
+    }
+
+    private static double parameterDerivative(double t, double lower, double upper) {
+        boolean hasLower = Double.isFinite(lower);
+        boolean hasUpper = Double.isFinite(upper);
+        if (hasLower && hasUpper) {
+            double e = Math.exp(-Math.abs(t));
+            return (upper - lower) * e / ((1 + e) * (1 + e));
+        } else if (hasLower) {
+            return Math.exp(t);
+        } else if (hasUpper) {
+            return -Math.exp(t);
+        }
+        return 1;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double maxAbs(double[] a) {
+        double max = 0;
+        for (double v : a) {
+            max = Math.max(max, Math.abs(v));
+        }
+        return max;
+    }
+
+    /**
+     * Function computing its gradient along with value.
+     */
+    @FunctionalInterface
+    private interface DifferentiableFunction {
+        double value(double[] point, double[] gradient);
+    }
+
+    /**
+     * Runs CMA-ES taken from per-thread cache of optimizers by dimension, so that repeated fits reuse
+     * preallocated state. Optimizer is removed from cache while it runs, nested runs get their own.
+     * Objective instance is created for every thread which actually evaluates population at once.
+     */
+    private static OptimizationResult minimize(Supplier<MultivariateFunction> function, double[] startParam, double[] sigma,
+                                               Pair<double[]> bounds, IOptimizationListener listener, Executor executor) {
+        Map<Integer, CmaEsOptimizer> optimizers = OPTIMIZERS.get();
+        CmaEsOptimizer optimizer = optimizers.remove(startParam.length);
+        if (optimizer == null) {
+            optimizer = new CmaEsOptimizer(startParam.length, POPULATION_SIZE, MAX_ITERATIONS, MAX_EVAL);
+        }
+        try {
+            return optimizer.minimize(function, parallelism(executor), executor, startParam, sigma,
+                    bounds.first, bounds.second, listener, THREAD_EVALUATIONS.get());
+        } finally {
+            optimizers.put(startParam.length, optimizer);
+        }
+    }
+
+    /**
+     * Number of threads evaluating population: threads of executor and calling thread, at most population size.
+     */
+    private static int parallelism(Executor executor) {
+        if (executor == null) {
+            return 1;
+        }
+        int threads;
+        if (executor instanceof ForkJoinPool) {
+            threads = ((ForkJoinPool) executor).getParallelism();
+        } else if (executor instanceof ThreadPoolExecutor) {
+            threads = ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        } else {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+        return (int) Math.min(POPULATION_SIZE, threads + 1L);
     }
 }
@@ -0,0 +1,24 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer;
+
+/**
+ * Reason why {@link PgOptimizer} stopped.
+ */
+public enum TerminationReason {
+    /**
+     * One of CMA-ES convergence criteria is met.
+     */
+    CONVERGED,
+    /**
+     * Iteration limit is reached.
+     */
+    MAX_ITERATIONS,
+    /**
+     * Evaluation budget is exhausted, optimizer returns best point found so far.
+     */
+    MAX_EVALUATIONS,
+    /**
+     * Gradient-based optimizer can't decrease objective along search direction,
+     * e.g. because objective is not finite at start point.
+     */
+    LINE_SEARCH_FAILED
+}
@@ -0,0 +1,28 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.sample;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+
+/**
+ * Read-only {@code List<Double>} view over primitive {@code double[]}.
+ * Values are boxed only on access, backing array is never copied.
+ */
+
+final class DoubleArrayView extends AbstractList<Double> implements RandomAccess {
+    private final double[] array;
+
+    DoubleArrayView(double[] array) {
+        this.array = array;
+    }
+
+    @Override
+    public Double get(int index) {
+        return array[index];
+    }
+
+    @Override
+    public int size() {
+        return array.length;
+    }
+}
@@ -1,52 +1,109 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.sample;
 
-import lombok.AccessLevel;
 import lombok.Getter;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.apache.commons.math3.stat.StatUtils;
+import org.apache.commons.math3.stat.descriptive.moment.Kurtosis;
+import org.apache.commons.math3.stat.descriptive.moment.Skewness;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.stream.Collectors;
 
 
 /**
  * {@code Sample} class represents collection of numerical values with optional weights.
  * It provides various statistical operations, including mean, min, max and ability to sort values.
  * Additionally, it supports arithmetic operations on all values and parsing from string representations.
+ *
+ * <p>Values are stored in primitive {@code double[]}; {@code List<Double>} getters are read-only views
+ * kept for compatibility. Arrays returned by {@link #getValueArray()} and {@link #getSortedValueArray()}
+ * are shared with sample and must not be modified; for already sorted values they are the same array.
  */
 
 @Getter
 public class Sample implements Iterable<Double> {
+    protected final double[] valueArray;
     protected final List<Double> values;
 
-    @Getter(lazy = true, value = AccessLevel.PRIVATE)
-    private final DescriptiveStatistics descriptiveStatistics = new DescriptiveStatistics(
-            values.stream().mapToDouble(Double::doubleValue).toArray());
     @Getter(lazy = true)
-    private final double skewness = getDescriptiveStatistics().getSkewness();
+    private final double skewness = new Skewness().evaluate(valueArray);
     @Getter(lazy = true)
-    private final double kurtosis = getDescriptiveStatistics().getKurtosis();
+    private final double kurtosis = new Kurtosis().evaluate(valueArray);
     @Getter(lazy = true)
-    private final double mean = getDescriptiveStatistics().getMean();
+    private final double mean = StatUtils.mean(valueArray);
     @Getter(lazy = true)
-    private final double standardDeviation = getDescriptiveStatistics().getStandardDeviation();
+    private final double standardDeviation = Math.sqrt(getVariance());
     @Getter(lazy = true)
-    private final double variance = getDescriptiveStatistics().getVariance();
+    private final double variance = StatUtils.variance(valueArray, getMean());
     @Getter(lazy = true)
-    private final double min = getDescriptiveStatistics().getMin();
+    private final double min = StatUtils.min(valueArray);
     @Getter(lazy = true)
-    private final double max = getDescriptiveStatistics().getMax();
+    private final double max = StatUtils.max(valueArray);
     @Getter(lazy = true)
-    private final List<Double> sortedValues = values.stream().sorted().collect(Collectors.toUnmodifiableList());
+    private final double[] sortedValueArray = sortedCopy(valueArray);
+    @Getter(lazy = true)
+    private final List<Double> sortedValues = new DoubleArrayView(getSortedValueArray());
 
     public Sample(List<Double> values) {
-        if (values.isEmpty()) {
+        this(values.stream().mapToDouble(Double::doubleValue).toArray(), false);
+    }
+
+    /**
+     * Creates sample from copy of given values.
+     *
+     * @param values sample values.
+     * @throws IllegalArgumentException if values are empty.
+     */
+    public Sample(double[] values) {
+        this(values, true);
+    }
+
+    /**
+     * Creates sample backed by given array.
+     *
+     * @param values sample values.
+     * @param copy   whether values should be copied; if {@code false}, caller must not modify array afterwards.
+     * @throws IllegalArgumentException if values are empty.
+     */
+    protected Sample(double[] values, boolean copy) {
+        if (values.length == 0) {
             throw new IllegalArgumentException("Values cannot be empty");
         }
 
-        // copy to unmodifiable list
-        this.values = Collections.unmodifiableList(values);
+        this.valueArray = copy ? values.clone() : values;
+        this.values = new DoubleArrayView(valueArray);
+    }
+
+    /**
+     * Creates sample backed by given array without copying it.
+     *
+     * @param values sample values, must not be modified afterwards.
+     * @return sample over {@code values}.
+     * @throws IllegalArgumentException if values are empty.
+     */
+    public static Sample wrap(double[] values) {
+        return new Sample(values, false);
+    }
+
+    private static double[] sortedCopy(double[] values) {
+        if (isSorted(values)) {
+            return values;
+        }
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * Checks whether values are in order of {@link Arrays#sort(double[])}.
+     */
+    static boolean isSorted(double[] values) {
+        for (int i = 1; i < values.length; i++) {
+            if (Double.compare(values[i - 1], values[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -60,9 +117,9 @@ public class Sample implements Iterable<Double> {
         if (quantile < 0.0 || quantile > 1.0) {
             throw new IllegalArgumentException("Quantile must be between 0 and 1");
         }
-        List<Double> sortedValues = getSortedValues();
-        int index = (int) Math.floor(quantile * (sortedValues.size() - 1));
-        return sortedValues.get(index);
+        double[] sortedValues = getSortedValueArray();
+        int index = (int) Math.floor(quantile * (sortedValues.length - 1));
+        return sortedValues[index];
     }
 
     /**
@@ -71,7 +128,7 @@ public class Sample implements Iterable<Double> {
      * @return number of elements in sample.
      */
     public int size() {
-        return values.size();
+        return valueArray.length;
     }
 
     @Override
@@ -3,33 +3,110 @@ package ru.postgrespro.perf.pgmicrobench.statanalyzer.sample;
 import lombok.Getter;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.density.DensityHistogramBin;
 
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+/**
+ * Sample with normalized weight for every value.
+ * Weights are stored in primitive {@code double[]}, sorted weights follow order of sorted values.
+ *
+ * <p>Effective sample size is number of observations represented by sample, it is used by goodness-of-fit
+ * tests. For arbitrary weights it is Kish's {@code (sum w)^2 / sum w^2}, for evenly weighted sample it is
+ * its size, and for frequency weights (e.g. histogram bucket counts) it is total count.
+ */
 public class WeightedSample extends Sample {
-    private final List<Double> weights;
+    @Getter
+    private final double[] weightArray;
+    @Getter
+    private final boolean evenWeights;
+    @Getter
+    private final double effectiveSize;
 
     @Getter(lazy = true)
-    private final List<Double> sortedWeights = weights.stream().sorted().collect(Collectors.toUnmodifiableList());
+    private final double[] sortedWeightArray = sortWeights();
+    @Getter(lazy = true)
+    private final List<Double> sortedWeights = new DoubleArrayView(getSortedWeightArray());
 
     public WeightedSample(List<Double> values, List<Double> weights) {
-        super(values);
+        this(values.stream().mapToDouble(Double::doubleValue).toArray(),
+                weights.stream().mapToDouble(Double::doubleValue).toArray(), false, false, Double.NaN);
+    }
 
-        if (values.size() != weights.size()) {
+    /**
+     * Creates weighted sample, weights are normalized to unit sum.
+     *
+     * @param values  sample values, array is copied.
+     * @param weights weights of values.
+     * @throws IllegalArgumentException if lengths differ or total weight is not positive.
+     */
+    public WeightedSample(double[] values, double[] weights) {
+        this(values, weights, true, false, Double.NaN);
+    }
+
+    private WeightedSample(double[] values, double[] weights, boolean copy, boolean evenWeights, double effectiveSize) {
+        super(values, copy);
+
+        if (values.length != weights.length) {
             throw new IllegalArgumentException("Values and weights must have the same length");
         }
 
-        double totalWeight = weights.stream().mapToDouble(Double::doubleValue).sum();
+        double totalWeight = 0;
+        for (double weight : weights) {
+            totalWeight += weight;
+        }
         if (totalWeight < 1e-9) {
             throw new IllegalArgumentException("Total weight must be positive.");
         }
 
-        this.weights = weights.stream().map(it -> it / totalWeight).collect(Collectors.toUnmodifiableList());
+        double[] normalized = new double[weights.length];
+        double squaredSum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            normalized[i] = weights[i] / totalWeight;
+            squaredSum += normalized[i] * normalized[i];
+        }
+
+        this.weightArray = normalized;
+        this.evenWeights = evenWeights;
+        if (evenWeights) {
+            this.effectiveSize = values.length;
+        } else {
+            this.effectiveSize = Double.isNaN(effectiveSize) ? 1 / squaredSum : effectiveSize;
+        }
     }
 
     public static WeightedSample evenWeightedSample(List<Double> values) {
-        return new WeightedSample(values, Collections.nCopies(values.size(), 1.0 / values.size()));
+        return evenWeightedSample(values.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    /**
+     * Creates sample where every value has the same weight.
+     *
+     * @param values sample values, array is not copied.
+     * @return evenly weighted sample.
+     */
+    public static WeightedSample evenWeightedSample(double[] values) {
+        double[] weights = new double[values.length];
+        Arrays.fill(weights, 1.0 / values.length);
+        return new WeightedSample(values, weights, false, true, Double.NaN);
+    }
+
+    /**
+     * Creates sample where every value represents {@code counts[i]} observations,
+     * e.g. histogram bucket. Effective sample size is total count.
+     *
+     * @param values sample values, array is not copied.
+     * @param counts numbers of observations of values.
+     * @return frequency weighted sample.
+     * @throws IllegalArgumentException if lengths differ or total count is not positive.
+     */
+    public static WeightedSample frequencyWeightedSample(double[] values, double[] counts) {
+        double totalCount = 0;
+        for (double count : counts) {
+            totalCount += count;
+        }
+        return new WeightedSample(values, counts, false, false, totalCount);
     }
 
     /**
@@ -39,16 +116,45 @@ public class WeightedSample extends Sample {
      * @return total weight of the sample values falling within the bin range.
      */
     public double getWeightForBin(DensityHistogramBin bin) {
-        double totalWeightForBin = 0.0;
-        double binLower = bin.getLower();
+        double[] sortedValues = getSortedValueArray();
+        double[] sortedWeights = getSortedWeightArray();
         double binUpper = bin.getUpper();
 
-        for (int i = 0; i < values.size(); i++) {
-            double value = values.get(i);
-            if (value >= binLower && value <= binUpper) {
-                totalWeightForBin += weights.get(i);
-            }
+        double totalWeightForBin = 0.0;
+        for (int i = lowerBound(sortedValues, bin.getLower()); i < sortedValues.length && sortedValues[i] <= binUpper; i++) {
+            totalWeightForBin += sortedWeights[i];
         }
         return totalWeightForBin;
     }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int left = 0;
+        int right = sorted.length;
+        while (left < right) {
+            int middle = (left + right) >>> 1;
+            if (sorted[middle] < value) {
+                left = middle + 1;
+            } else {
+                right = middle;
+            }
+        }
+        return left;
+    }
+
+    private double[] sortWeights() {
+        if (evenWeights || isSorted(valueArray)) {
+            return weightArray;
+        }
+
+        double[] sorted = new double[weightArray.length];
+        int[] order = IntStream.range(0, valueArray.length)
+                .boxed()
+                .sorted(Comparator.comparingDouble(i -> valueArray[i]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = weightArray[order[i]];
+        }
+        return sorted;
+    }
 }
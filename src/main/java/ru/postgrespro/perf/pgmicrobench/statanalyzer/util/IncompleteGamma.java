@@ -0,0 +1,179 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.util;
+
+import org.apache.commons.math3.util.FastMath;
+
+
+/**
+ * Regularized incomplete gamma functions P(a, x) and Q(a, x) = 1 - P(a, x), i.e. CDF and survival
+ * function of Gamma(a, 1), with their inverse.
+ * Caller passes {@code log Gamma(a)} computed once per shape, so evaluations cost single series
+ * or continued fraction each. Unlike {@link RegularizedBeta} methods are static, because distributions
+ * replace their shape in place inside optimizer and must not allocate.
+ * Series is used for {@code x < a + 1}, continued fraction of Q otherwise, so both converge fast
+ * and lose no precision for large x.
+ */
+public final class IncompleteGamma {
+    private static final double EPSILON = 1e-15;
+    private static final double FP_MIN = 1e-300;
+    private static final int MAX_ITERATIONS = 10_000;
+    private static final int MAX_INVERSE_ITERATIONS = 200;
+
+    private IncompleteGamma() {
+    }
+
+    /**
+     * Computes P(a, x).
+     *
+     * @param a         shape, positive.
+     * @param x         argument.
+     * @param logGammaA {@code log Gamma(a)}.
+     * @return value in [0; 1].
+     */
+    public static double regularizedP(double a, double x, double logGammaA) {
+        if (x <= 0) {
+            return 0;
+        }
+        if (x == Double.POSITIVE_INFINITY) {
+            return 1;
+        }
+        if (x < a + 1) {
+            return series(a, x, logGammaA);
+        }
+        return 1 - continuedFraction(a, x, logGammaA);
+    }
+
+    /**
+     * Computes Q(a, x) = 1 - P(a, x) without cancellation in upper tail.
+     *
+     * @param a         shape, positive.
+     * @param x         argument.
+     * @param logGammaA {@code log Gamma(a)}.
+     * @return value in [0; 1].
+     */
+    public static double regularizedQ(double a, double x, double logGammaA) {
+        if (x <= 0) {
+            return 1;
+        }
+        if (x == Double.POSITIVE_INFINITY) {
+            return 0;
+        }
+        if (x < a + 1) {
+            return 1 - series(a, x, logGammaA);
+        }
+        return continuedFraction(a, x, logGammaA);
+    }
+
+    /**
+     * Computes logarithm of Gamma(a, 1) density.
+     *
+     * @param a         shape, positive.
+     * @param x         positive argument.
+     * @param logGammaA {@code log Gamma(a)}.
+     * @return log-density.
+     */
+    public static double logDensity(double a, double x, double logGammaA) {
+        return (a - 1) * FastMath.log(x) - x - logGammaA;
+    }
+
+    /**
+     * Solves P(a, x) = p by Newton steps kept inside bracket of root, falling back to bisection.
+     * Number of iterations is limited, so result is always returned.
+     *
+     * @param a         shape, positive.
+     * @param p         probability.
+     * @param logGammaA {@code log Gamma(a)}.
+     * @return x, {@code 0} for {@code p <= 0} and infinity for {@code p >= 1}.
+     */
+    public static double inverseRegularizedP(double a, double p, double logGammaA) {
+        if (p <= 0) {
+            return 0;
+        }
+        if (p >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+
+        // Wilson-Hilferty approximation as first guess
+        double z = inverseStandardNormal(p);
+        double c = 1 / (9 * a);
+        double x = a * Math.pow(Math.max(1 - c + z * Math.sqrt(c), 1e-3), 3);
+
+        double low = 0;
+        double high = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < MAX_INVERSE_ITERATIONS; i++) {
+            double error = regularizedP(a, x, logGammaA) - p;
+            if (error == 0) {
+                return x;
+            }
+            if (error < 0) {
+                low = x;
+            } else {
+                high = x;
+            }
+
+            double next = x - error / FastMath.exp(logDensity(a, x, logGammaA));
+            if (!(next > low && next < high)) {
+                next = high == Double.POSITIVE_INFINITY ? 2 * x : (low + high) / 2;
+            }
+            if (Math.abs(next - x) <= EPSILON * 10 * x) {
+                return next;
+            }
+            x = next;
+        }
+        return x;
+    }
+
+    private static double series(double a, double x, double logGammaA) {
+        double term = 1 / a;
+        double sum = term;
+        double ap = a;
+        for (int n = 1; n <= MAX_ITERATIONS; n++) {
+            ap += 1;
+            term *= x / ap;
+            sum += term;
+            if (term < sum * EPSILON) {
+                break;
+            }
+        }
+        return sum * FastMath.exp(a * FastMath.log(x) - x - logGammaA);
+    }
+
+    /**
+     * Modified Lentz evaluation of continued fraction for Q(a, x).
+     */
+    private static double continuedFraction(double a, double x, double logGammaA) {
+        double b = x + 1 - a;
+        double c = 1 / FP_MIN;
+        double d = 1 / b;
+        double h = d;
+        for (int i = 1; i <= MAX_ITERATIONS; i++) {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            if (Math.abs(d) < FP_MIN) {
+                d = FP_MIN;
+            }
+            c = b + an / c;
+            if (Math.abs(c) < FP_MIN) {
+                c = FP_MIN;
+            }
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < EPSILON) {
+                break;
+            }
+        }
+        return FastMath.exp(a * FastMath.log(x) - x - logGammaA) * h;
+    }
+
+    /**
+     * Rational approximation of standard normal quantile (Abramowitz and Stegun 26.2.23), enough for starting point.
+     */
+    private static double inverseStandardNormal(double p) {
+        double q = Math.min(p, 1 - p);
+        double t = Math.sqrt(-2 * Math.log(q));
+        double z = t - (2.515517 + 0.802853 * t + 0.010328 * t * t)
+                / (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+        return p < 0.5 ? -z : z;
+    }
+}
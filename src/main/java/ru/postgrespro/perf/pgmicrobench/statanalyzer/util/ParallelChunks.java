@@ -0,0 +1,138 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.util;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+
+/**
+ * Runs chunks of work in parallel on executor together with calling thread.
+ * Chunks are claimed both by executor tasks and by calling thread, so all chunks complete
+ * even if executor is busy, rejects tasks or never runs them.
+ */
+public final class ParallelChunks {
+    private ParallelChunks() {
+    }
+
+    /**
+     * Work of one thread over chunks it claims.
+     */
+    @FunctionalInterface
+    public interface Worker {
+        /**
+         * Processes chunk.
+         *
+         * @param chunk index of chunk.
+         */
+        void accept(int chunk);
+
+        /**
+         * Called after last chunk claimed by thread and before it is counted as done,
+         * e.g. to return per-thread resources.
+         */
+        default void finish() {
+        }
+    }
+
+    /**
+     * Processes every chunk index from {@code 0} to {@code chunks - 1}, returns when all of them are done.
+     * Worker is created by every thread when it claims its first chunk.
+     *
+     * @param chunks   number of chunks.
+     * @param helpers  number of executor tasks helping calling thread.
+     * @param executor executor of helper tasks, {@code null} to process chunks in calling thread.
+     * @param workers  factory of per-thread workers.
+     * @throws RuntimeException first failure of workers, rethrown after all chunks are done.
+     */
+    public static void forEach(int chunks, int helpers, Executor executor, Supplier<? extends Worker> workers) {
+        if (executor == null || helpers <= 0 || chunks <= 1) {
+            Worker worker = workers.get();
+            try {
+                for (int c = 0; c < chunks; c++) {
+                    worker.accept(c);
+                }
+            } finally {
+                worker.finish();
+            }
+            return;
+        }
+
+        Task task = new Task(chunks, workers);
+        try {
+            for (int i = 0; i < Math.min(helpers, chunks - 1); i++) {
+                executor.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            // remaining chunks are processed by calling thread
+        }
+        task.run();
+        task.await();
+    }
+
+    private static final class Task implements Runnable {
+        private final int chunks;
+        private final Supplier<? extends Worker> workers;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final CountDownLatch done;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Task(int chunks, Supplier<? extends Worker> workers) {
+            this.chunks = chunks;
+            this.workers = workers;
+            this.done = new CountDownLatch(chunks);
+        }
+
+        @Override
+        public void run() {
+            Worker worker = null;
+            int chunk = nextChunk.getAndIncrement();
+            while (chunk < chunks) {
+                try {
+                    if (worker == null) {
+                        worker = workers.get();
+                    }
+                    worker.accept(chunk);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+                int next = nextChunk.getAndIncrement();
+                if (next >= chunks && worker != null) {
+                    try {
+                        worker.finish();
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                done.countDown();
+                chunk = next;
+            }
+        }
+
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            Throwable e = failure.get();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            } else if (e != null) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
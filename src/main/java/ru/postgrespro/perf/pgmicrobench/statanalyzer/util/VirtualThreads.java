@@ -0,0 +1,62 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Executor of virtual threads for Java 11 baseline.
+ * Multi-release jar built on JDK 21+ replaces this class with direct call from {@code src/main/java21},
+ * this version finds the same factory at runtime, so virtual threads also work from unpacked classes on Java 21+.
+ */
+public final class VirtualThreads {
+    private static final int MIN_FEATURE_VERSION = 21;
+    private static final MethodHandle NEW_EXECUTOR = findNewExecutor();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks whether running JVM has virtual threads.
+     *
+     * @return {@code true} on Java 21 or newer.
+     */
+    public static boolean isSupported() {
+        return NEW_EXECUTOR != null;
+    }
+
+    /**
+     * Creates executor starting new virtual thread for every task.
+     *
+     * @return new executor, must be shut down by caller.
+     * @throws UnsupportedOperationException if JVM has no virtual threads.
+     */
+    public static ExecutorService newExecutor() {
+        if (NEW_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java " + MIN_FEATURE_VERSION + " or newer");
+        }
+        try {
+            return (ExecutorService) NEW_EXECUTOR.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MethodHandle findNewExecutor() {
+        // preview virtual threads of Java 19 and 20 are not enabled by default
+        if (Runtime.version().feature() < MIN_FEATURE_VERSION) {
+            return null;
+        }
+        try {
+            return MethodHandles.publicLookup().findStatic(Executors.class, "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
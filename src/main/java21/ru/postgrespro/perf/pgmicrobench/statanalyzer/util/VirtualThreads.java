@@ -0,0 +1,31 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.util;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+
+/**
+ * Executor of virtual threads, Java 21 version of multi-release jar.
+ */
+public final class VirtualThreads {
+    private VirtualThreads() {
+    }
+
+    /**
+     * Checks whether running JVM has virtual threads.
+     *
+     * @return always {@code true}.
+     */
+    public static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates executor starting new virtual thread for every task.
+     *
+     * @return new executor, must be shut down by caller.
+     */
+    public static ExecutorService newExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
@@ -67,7 +67,7 @@ public class StatAnalyzerTestUtils {
      */
     static public List<SampleTarget<PgSimpleDistribution>> getSimpleSampleTargets(int size, Random random) {
         // TODO use parametrized test
-        return Stream.of(
+        return Stream.<PgSimpleDistribution>of(
                         new PgLogNormalDistribution(2, 2),
                         new PgGumbelDistribution(2, 2),
                         new PgFrechetDistribution(2, 2),
@@ -75,4 +75,35 @@ public class StatAnalyzerTestUtils {
                 ).map(it -> new SampleTarget<>(it.generate(size, random), it))
                 .collect(Collectors.toUnmodifiableList());
     }
+
+    /**
+     * Distribution of every family with typical parameters and composite of two of them.
+     *
+     * @return list.
+     */
+    static public List<PgDistribution> getDistributions() {
+        return List.of(
+                new PgNormalDistribution(3, 2),
+                new PgLogNormalDistribution(1, 0.5),
+                new PgFrechetDistribution(2, 3),
+                new PgGammaDistribution(2.5, 1.5),
+                new PgGumbelDistribution(2, 3),
+                new PgUniformDistribution(0, 10),
+                new PgWeibullDistribution(1.5, 4),
+                new PgCompositeDistribution(
+                        List.of(new PgNormalDistribution(3, 1), new PgLogNormalDistribution(2, 0.3)),
+                        List.of(0.3, 0.7)));
+    }
+
+    /**
+     * Differentiable distributions of {@link #getDistributions()}.
+     *
+     * @return list.
+     */
+    static public List<PgDifferentiableDistribution> getDifferentiableDistributions() {
+        return getDistributions().stream()
+                .filter(PgDifferentiableDistribution.class::isInstance)
+                .map(PgDifferentiableDistribution.class::cast)
+                .collect(Collectors.toUnmodifiableList());
+    }
 }
@@ -1,21 +1,35 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.AnalysisResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.ExecutionMode;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.ModeReport;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.StatAnalyzer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.FittedDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.VirtualThreads;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.IntStream;
 
 /**
@@ -29,11 +43,12 @@ public class TestStatAnalyzer {
                 CompletableFuture.runAsync(() -> {
                     for (SampleTarget<PgSimpleDistribution> sampleTarget :
                             StatAnalyzerTestUtils.getSimpleSampleTargets(5000, new Random(seed))) {
-                        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                        AnalysisResult analysisResult;
+                        try (StatAnalyzer statAnalyzer = StatAnalyzer.builder()
                                 .random(new Random(seed + 1))
-                                .build();
-
-                        AnalysisResult analysisResult = statAnalyzer.analyze(sampleTarget.sample.getValues());
+                                .build()) {
+                            analysisResult = statAnalyzer.analyze(sampleTarget.sample.getValues());
+                        }
 
                         Assertions.assertEquals(1, analysisResult.getModeReports().size(),
                                 "Number of modes not as expected");
@@ -50,6 +65,202 @@ public class TestStatAnalyzer {
         ).toArray(CompletableFuture[]::new)).join();
     }
 
+    @Test
+    public void testAnalyzeOnSingleThread() {
+        PgCompositeDistribution distribution = new PgCompositeDistribution(
+                List.of(new PgLogNormalDistribution(1, 0.1), new PgLogNormalDistribution(2, 0.1),
+                        new PgLogNormalDistribution(3, 0.1)),
+                List.of(1.0, 1.0, 1.0));
+        List<Double> values = distribution.generate(3000, new Random(0)).getValues();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            AnalysisResult result = StatAnalyzer.builder()
+                    .random(new Random(7))
+                    .pool(pool)
+                    .build()
+                    .analyze(values);
+            Assertions.assertEquals(3, result.getModeReports().size());
+
+            AnalysisResult asyncResult = StatAnalyzer.builder()
+                    .random(new Random(7))
+                    .pool(pool)
+                    .build()
+                    .analyzeAsync(values)
+                    .join();
+            Assertions.assertEquals(result.getPValue(), asyncResult.getPValue());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testAnalyzeAllOnSingleThread() {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            PgCompositeDistribution distribution = new PgCompositeDistribution(
+                    List.of(new PgLogNormalDistribution(1, 0.1), new PgLogNormalDistribution(2 + i * 0.5, 0.1)),
+                    List.of(1.0, 1.0));
+            samples.put("series" + i, distribution.generate(2000, new Random(i)).getValues());
+        }
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Map<String, AnalysisResult> streamed = new ConcurrentHashMap<>();
+            StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                    .random(new Random(7))
+                    .pool(pool)
+                    .maxConcurrentSamples(2)
+                    .build();
+
+            Map<String, AnalysisResult> results = statAnalyzer.analyzeAll(samples, (name, result) ->
+                    Assertions.assertNull(streamed.put(name, result)));
+
+            Assertions.assertEquals(List.copyOf(samples.keySet()), List.copyOf(results.keySet()));
+            Assertions.assertEquals(results, streamed);
+            for (AnalysisResult result : results.values()) {
+                Assertions.assertEquals(2, result.getModeReports().size());
+            }
+
+            Map<String, AnalysisResult> repeated = StatAnalyzer.builder()
+                    .random(new Random(7))
+                    .pool(pool)
+                    .maxConcurrentSamples(1)
+                    .build()
+                    .analyzeAll(samples);
+            for (String name : samples.keySet()) {
+                Assertions.assertEquals(results.get(name).getPValue(), repeated.get(name).getPValue());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void testAnalyzeAllConsumerError() {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            samples.put("series" + i, new PgLogNormalDistribution(1, 0.2).generate(1000, new Random(i)).getValues());
+        }
+        try (StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .maxConcurrentSamples(1)
+                .build()) {
+            CompletionException e = Assertions.assertThrows(CompletionException.class,
+                    () -> statAnalyzer.analyzeAll(samples, (name, result) -> {
+                        throw new AssertionError(name);
+                    }));
+            Assertions.assertInstanceOf(AssertionError.class, e.getCause());
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void testCloseInAnalyzeAllConsumer() {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            samples.put("series" + i, new PgLogNormalDistribution(1, 0.2).generate(1000, new Random(i)).getValues());
+        }
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .maxConcurrentSamples(1)
+                .build();
+        List<String> analyzed = new ArrayList<>();
+
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> statAnalyzer.analyzeAll(samples, (name, result) -> {
+                    analyzed.add(name);
+                    statAnalyzer.close();
+                }));
+        Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+        Assertions.assertEquals(List.of("series0"), analyzed);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ExecutionMode.class)
+    public void testExecutionModes(ExecutionMode executionMode) {
+        Assumptions.assumeTrue(executionMode != ExecutionMode.VIRTUAL_THREADS || VirtualThreads.isSupported(),
+                "Virtual threads are not supported");
+        PgCompositeDistribution distribution = new PgCompositeDistribution(
+                List.of(new PgLogNormalDistribution(1, 0.1), new PgLogNormalDistribution(2, 0.1)),
+                List.of(1.0, 1.0));
+        List<Double> values = distribution.generate(2000, new Random(0)).getValues();
+
+        AnalysisResult expected;
+        try (StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .executionMode(ExecutionMode.CALLER_THREAD)
+                .build()) {
+            expected = statAnalyzer.analyze(values);
+        }
+
+        try (StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .executionMode(executionMode)
+                .build()) {
+            AnalysisResult result = statAnalyzer.analyze(values);
+
+            Assertions.assertEquals(2, result.getModeReports().size());
+            Assertions.assertEquals(expected.getPValue(), result.getPValue());
+        }
+    }
+
+    @Test
+    public void testClose() {
+        List<Double> values = new PgLogNormalDistribution(1, 0.2).generate(1000, new Random(0)).getValues();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                    .pool(pool)
+                    .build();
+            statAnalyzer.analyze(values);
+            statAnalyzer.close();
+            statAnalyzer.close();
+
+            Assertions.assertFalse(pool.isShutdown());
+            Assertions.assertThrows(IllegalStateException.class, () -> statAnalyzer.analyze(values));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    public void testCloseDuringAnalysis() {
+        PgCompositeDistribution distribution = new PgCompositeDistribution(
+                List.of(new PgLogNormalDistribution(1, 0.1), new PgLogNormalDistribution(2, 0.1)),
+                List.of(1.0, 1.0));
+        List<Double> values = distribution.generate(20000, new Random(0)).getValues();
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .build();
+
+        CompletableFuture<AnalysisResult> analysis = statAnalyzer.analyzeAsync(values);
+        statAnalyzer.close();
+
+        Assertions.assertEquals(2, analysis.join().getModeReports().size());
+        Assertions.assertThrows(IllegalStateException.class, () -> statAnalyzer.analyzeAsync(values));
+    }
+
+    @Test
+    @Timeout(60)
+    public void testCloseDuringAnalyzeAll() {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        for (int i = 0; i < 4; i++) {
+            PgCompositeDistribution distribution = new PgCompositeDistribution(
+                    List.of(new PgLogNormalDistribution(1, 0.1), new PgLogNormalDistribution(2 + i * 0.5, 0.1)),
+                    List.of(1.0, 1.0));
+            samples.put("series" + i, distribution.generate(5000, new Random(i)).getValues());
+        }
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(7))
+                .maxConcurrentSamples(2)
+                .build();
+
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> statAnalyzer.analyzeAll(samples, (name, result) -> statAnalyzer.close()));
+        Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+    }
+
     private void generateTestData() {
         try {
             System.out.println("Запуск Python-генератора данных...");
@@ -0,0 +1,60 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.StatAnalyzerTestUtils;
+
+import java.util.stream.Stream;
+
+public class TestBulkEvaluation {
+    private static final double[] VALUES = {-1, 0, 0.1, 0.5, 1, 2, 3.5, 5, 8, 13, 40};
+
+    private static Stream<Arguments> distributions() {
+        return StatAnalyzerTestUtils.getDistributions().stream().map(Arguments::of);
+    }
+
+    private static void assertClose(double expected, double actual) {
+        if (Double.isNaN(expected) || Double.isInfinite(expected)) {
+            Assertions.assertEquals(expected, actual);
+        } else {
+            Assertions.assertEquals(expected, actual, 1e-12 * Math.max(1, Math.abs(expected)));
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("distributions")
+    public void testBulkMatchesScalar(PgDistribution distribution) {
+        double[] pdf = new double[VALUES.length];
+        double[] cdf = new double[VALUES.length];
+        double[] logPdf = new double[VALUES.length];
+        distribution.pdf(VALUES, pdf);
+        distribution.cdf(VALUES, cdf);
+        distribution.logPdf(VALUES, logPdf);
+
+        for (int i = 0; i < VALUES.length; i++) {
+            assertClose(distribution.pdf(VALUES[i]), pdf[i]);
+            assertClose(distribution.cdf(VALUES[i]), cdf[i]);
+            assertClose(distribution.logPdf(VALUES[i]), logPdf[i]);
+            if (pdf[i] > 0 && VALUES[i] > 0) {
+                assertClose(Math.log(pdf[i]), logPdf[i]);
+            }
+        }
+
+        double[] inPlace = VALUES.clone();
+        distribution.cdf(inPlace, inPlace);
+        Assertions.assertArrayEquals(cdf, inPlace);
+    }
+
+    @Test
+    public void testLogPdfInTail() {
+        PgDistribution distribution = new PgNormalDistribution(3, 2);
+
+        Assertions.assertEquals(0, distribution.pdf(200));
+        Assertions.assertEquals(-0.5 * 98.5 * 98.5 - Math.log(2) - 0.5 * Math.log(2 * Math.PI), distribution.logPdf(200), 1e-9);
+    }
+}
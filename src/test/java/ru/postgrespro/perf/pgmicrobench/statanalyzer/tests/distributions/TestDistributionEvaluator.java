@@ -0,0 +1,74 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistributionEvaluator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.StatAnalyzerTestUtils;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class TestDistributionEvaluator {
+    private static final double[] VALUES = {0.1, 0.5, 1, 2, 3.5, 5, 8, 13};
+
+    /**
+     * Distributions with other parameters of the same family, every parameter is scaled.
+     */
+    private static Stream<Arguments> distributions() {
+        return StatAnalyzerTestUtils.getDistributions().stream().map(distribution -> {
+            double[] params = distribution.getParamArray().clone();
+            for (int i = 0; i < params.length; i++) {
+                params[i] *= i % 2 == 0 ? 1.5 : 0.5;
+            }
+            return Arguments.of(distribution, params);
+        });
+    }
+
+    @ParameterizedTest
+    @MethodSource("distributions")
+    public void testEvaluatorMatchesNewDistribution(PgDistribution distribution, double[] params) {
+        PgDistributionEvaluator evaluator = distribution.newEvaluator();
+        double[] shifted = new double[params.length + 2];
+        System.arraycopy(params, 0, shifted, 2, params.length);
+
+        PgDistribution first = evaluator.setParams(distribution.getParamArray(), 0);
+        double[] firstCdf = new double[VALUES.length];
+        first.cdf(VALUES, firstCdf);
+        PgDistribution evaluated = evaluator.setParams(shifted, 2);
+        PgDistribution expected = distribution.newDistribution(params);
+
+        double[] actualCdf = new double[VALUES.length];
+        double[] actualLogPdf = new double[VALUES.length];
+        evaluated.cdf(VALUES, actualCdf);
+        evaluated.logPdf(VALUES, actualLogPdf);
+        for (int i = 0; i < VALUES.length; i++) {
+            Assertions.assertEquals(distribution.cdf(VALUES[i]), firstCdf[i], 1e-12);
+            Assertions.assertEquals(expected.cdf(VALUES[i]), actualCdf[i], 1e-12);
+            Assertions.assertEquals(expected.logPdf(VALUES[i]), actualLogPdf[i], 1e-12);
+        }
+        Assertions.assertArrayEquals(expected.getParamArray(), evaluated.getParamArray(), 1e-12);
+    }
+
+    @Test
+    public void testEvaluatorReusesInstance() {
+        PgCompositeDistribution composite = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(3, 1), new PgGumbelDistribution(10, 2)), List.of(0.5, 0.5));
+        PgDistributionEvaluator evaluator = composite.newEvaluator();
+
+        PgDistribution first = evaluator.setParams(new double[]{1, 1, 2, 2, 1, 1}, 0);
+        PgDistribution second = evaluator.setParams(new double[]{2, 1, 3, 2, 1, 3}, 0);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(List.of(0.25, 0.75), ((PgCompositeDistribution) second).getWeights());
+        Assertions.assertEquals(List.of(0.5, 0.5), composite.getWeights());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> evaluator.setParams(new double[]{2, -1, 3, 2, 1, 3}, 0));
+    }
+}
@@ -0,0 +1,43 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions;
+
+import org.apache.commons.math3.distribution.GammaDistribution;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGammaDistribution;
+
+public class TestGamma {
+    @ParameterizedTest
+    @ValueSource(doubles = {0.3, 1, 2.5, 17, 250})
+    public void testMatchesCommonsMath(double shape) {
+        double scale = 3;
+        PgGammaDistribution distribution = new PgGammaDistribution(shape, scale);
+        GammaDistribution reference = new GammaDistribution(shape, scale);
+
+        double mean = shape * scale;
+        for (double x = mean * 1e-3; x < mean * 10; x *= 1.1) {
+            double p = reference.cumulativeProbability(x);
+            Assertions.assertEquals(p, distribution.cdf(x), 1e-12 + 1e-9 * p, "x " + x);
+            double density = reference.density(x);
+            if (density > 0) {
+                Assertions.assertEquals(density, distribution.pdf(x), 1e-10 * density, "x " + x);
+            }
+        }
+        Assertions.assertEquals(1, distribution.cdf(mean * 1000));
+    }
+
+    @ParameterizedTest
+    @ValueSource(doubles = {0.3, 1, 2.5, 17, 250})
+    public void testQuantile(double shape) {
+        PgGammaDistribution distribution = new PgGammaDistribution(shape, 3);
+
+        for (double p = 1e-9; p < 1 - 1e-9; p = p < 0.5 ? p * 2 : 1 - (1 - p) / 2) {
+            double x = distribution.quantile(p);
+            double expected = p < 0.5 ? p : 1 - p;
+            double actual = p < 0.5 ? distribution.cdf(x) : 1 - distribution.cdf(x);
+            Assertions.assertEquals(expected, actual, 1e-15 + 1e-8 * expected, "p " + p);
+        }
+        Assertions.assertEquals(0, distribution.quantile(0));
+        Assertions.assertEquals(Double.POSITIVE_INFINITY, distribution.quantile(1));
+    }
+}
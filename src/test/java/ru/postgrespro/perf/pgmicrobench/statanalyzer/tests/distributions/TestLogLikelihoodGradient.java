@@ -0,0 +1,52 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDifferentiableDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.StatAnalyzerTestUtils;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TestLogLikelihoodGradient {
+    private static Stream<Arguments> distributions() {
+        return StatAnalyzerTestUtils.getDifferentiableDistributions().stream().map(Arguments::of);
+    }
+
+    @ParameterizedTest
+    @MethodSource("distributions")
+    public void testGradientMatchesFiniteDifferences(PgDifferentiableDistribution distribution) {
+        double[] values = distribution.generate(200, new Random(1)).getValueArray();
+        double[] params = distribution.getParamArray();
+        PgDifferentiableDistribution other = distribution.newDistribution(new double[]{params[0] * 1.1, params[1] * 0.9});
+
+        double[] gradient = new double[2];
+        double logLikelihood = other.logLikelihood(values, gradient);
+
+        double sum = 0;
+        double[] pointGradient = new double[2];
+        double[] summedGradient = new double[2];
+        for (double value : values) {
+            sum += other.logPdf(value);
+            other.logPdfGradient(value, pointGradient);
+            summedGradient[0] += pointGradient[0];
+            summedGradient[1] += pointGradient[1];
+        }
+        Assertions.assertEquals(sum, logLikelihood, 1e-9 * Math.abs(sum));
+        Assertions.assertArrayEquals(summedGradient, gradient, 1e-9 * (Math.abs(gradient[0]) + Math.abs(gradient[1])));
+
+        double[] otherParams = other.getParamArray();
+        for (int i = 0; i < 2; i++) {
+            double h = 1e-6 * Math.abs(otherParams[i]);
+            double[] plus = otherParams.clone();
+            double[] minus = otherParams.clone();
+            plus[i] += h;
+            minus[i] -= h;
+            double numeric = (distribution.newDistribution(plus).logLikelihood(values, new double[2])
+                    - distribution.newDistribution(minus).logLikelihood(values, new double[2])) / (2 * h);
+            Assertions.assertEquals(numeric, gradient[i], 1e-5 * Math.max(1, Math.abs(numeric)));
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions.recognition;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.AndersonDarling;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.IDistributionTest;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.KolmogorovSmirnov;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.Multicriteria;
 import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.Collectors;
@@ -21,6 +24,10 @@ import java.util.stream.Stream;
  */
 public class TestDistributionTest {
     private static final double TEST_THRESHOLD = 0.05;
+    /**
+     * Bound of rejected correct hypotheses of 36 samples, probability to exceed it at 5% level is below 3%.
+     */
+    private static final int MAX_FALSE_REJECTIONS = 4;
 
     private static final List<PgSimpleDistribution> DISTRIBUTIONS = Stream.of(
             new PgLogNormalDistribution(1, 1),
@@ -47,11 +54,20 @@ public class TestDistributionTest {
     ).collect(Collectors.toUnmodifiableList());
 
     static Stream<Arguments> generateArgumentsForDontRejectCorrect() {
+        return dontRejectCorrectArguments().filter(arguments -> !isAndersonDarling(arguments));
+    }
+
+    /**
+     * Samples of all tests come from one generator, so adding test to the end of list
+     * doesn't change samples of preceding ones.
+     */
+    private static Stream<Arguments> dontRejectCorrectArguments() {
         Random random = new Random(5432);
         return Stream.of(
                 new KolmogorovSmirnov(),
                 new CramerVonMises(),
-                new Multicriteria()
+                new Multicriteria(),
+                new AndersonDarling()
         ).map(distributionTest ->
                 DISTRIBUTIONS.stream().map(d -> Arguments.of(
                         distributionTest, d,
@@ -61,12 +77,17 @@ public class TestDistributionTest {
     }
 
     static Stream<Arguments> generateArgumentsForRejectNotCorrect() {
+        return rejectNotCorrectArguments().filter(arguments -> !isAndersonDarling(arguments));
+    }
+
+    private static Stream<Arguments> rejectNotCorrectArguments() {
         // Все возможные пары из DISTRIBUTIONS
         Random random = new Random(5433);
         return Stream.of(
                 new KolmogorovSmirnov(),
-                new CramerVonMises()
-                //,new Multicriteria() // TODO fix Multicriteria
+                new CramerVonMises(),
+                //new Multicriteria(), // TODO fix Multicriteria
+                new AndersonDarling()
         ).flatMap(distributionTest -> DISTRIBUTIONS.stream()
                 .flatMap(correctDistribution -> DISTRIBUTIONS.stream()
                         .map(distribution -> Arguments.of(
@@ -79,6 +100,10 @@ public class TestDistributionTest {
         );
     }
 
+    private static boolean isAndersonDarling(Arguments arguments) {
+        return arguments.get()[0] instanceof AndersonDarling;
+    }
+
     @ParameterizedTest
     @MethodSource("generateArgumentsForDontRejectCorrect")
     void dontRejectCorrect(IDistributionTest distributionTest,
@@ -101,4 +126,34 @@ public class TestDistributionTest {
             Assertions.assertTrue(test >= TEST_THRESHOLD);
         }
     }
+
+    /**
+     * Anderson-Darling on samples of the same generators as other tests. At level {@code TEST_THRESHOLD}
+     * correct hypothesis is rejected with probability 5%, so such rejections are counted instead of
+     * asserted for every sample, while every wrong hypothesis must be rejected.
+     */
+    @Test
+    void andersonDarlingDecisions() {
+        List<Object[]> correct = new ArrayList<>();
+        List<Object[]> wrong = new ArrayList<>();
+        Stream.concat(dontRejectCorrectArguments(), rejectNotCorrectArguments())
+                .filter(TestDistributionTest::isAndersonDarling)
+                .map(Arguments::get)
+                .forEach(arguments -> (arguments.length > 3 && (Boolean) arguments[3] ? wrong : correct)
+                        .add(arguments));
+
+        long falseRejections = correct.stream()
+                .filter(arguments -> test(arguments) < TEST_THRESHOLD)
+                .count();
+        Assertions.assertTrue(falseRejections <= MAX_FALSE_REJECTIONS,
+                falseRejections + " of " + correct.size() + " correct hypotheses rejected");
+
+        for (Object[] arguments : wrong) {
+            Assertions.assertTrue(test(arguments) < TEST_THRESHOLD, arguments[1] + " not rejected");
+        }
+    }
+
+    private static double test(Object[] arguments) {
+        return ((IDistributionTest) arguments[0]).test((Sample) arguments[2], (PgDistribution) arguments[1]);
+    }
 }
@@ -0,0 +1,155 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions.recognition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgUniformDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.AndersonDarling;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EdfContext;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EdfStatistics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.KolmogorovSmirnov;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+
+public class TestEdfStatistics {
+    private static final PgDistribution DISTRIBUTION = new PgLogNormalDistribution(1, 0.5);
+
+    private static double classicAndersonDarling(Sample sample, PgDistribution distribution) {
+        double[] sorted = sample.getSortedValueArray();
+        int n = sorted.length;
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += (2 * i + 1) * (Math.log(distribution.cdf(sorted[i])) + Math.log1p(-distribution.cdf(sorted[n - 1 - i])));
+        }
+        return -n - sum / n;
+    }
+
+    @Test
+    public void testUnitWeightsMatchClassicStatistics() {
+        double[] values = DISTRIBUTION.generate(1000, new Random(1)).getValueArray();
+        double[] ones = new double[values.length];
+        Arrays.fill(ones, 1);
+        Sample sample = new Sample(values);
+        WeightedSample weighted = new WeightedSample(values, ones);
+        PgDistribution other = new PgLogNormalDistribution(1.1, 0.45);
+
+        Assertions.assertEquals(values.length, weighted.getEffectiveSize(), 1e-6);
+        Assertions.assertEquals(new CramerVonMises().statistic(sample, other),
+                EdfStatistics.cramerVonMises(weighted, other), 1e-9);
+        Assertions.assertEquals(new KolmogorovSmirnov().statistic(sample, other),
+                EdfStatistics.kolmogorovSmirnov(weighted, other), 1e-12);
+        Assertions.assertEquals(classicAndersonDarling(sample, other),
+                EdfStatistics.andersonDarling(weighted, other), 1e-8);
+        Assertions.assertEquals(new KolmogorovSmirnov().test(sample, other),
+                new KolmogorovSmirnov().test(weighted, other), 1e-9);
+    }
+
+    @Test
+    public void testCountsMatchRepeatedValues() {
+        Random random = new Random(2);
+        double[] values = new double[2000];
+        TreeMap<Double, Integer> counts = new TreeMap<>();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.round((10 + 2 * random.nextGaussian()) * 4) / 4.0;
+            counts.merge(values[i], 1, Integer::sum);
+        }
+        WeightedSample binned = WeightedSample.frequencyWeightedSample(
+                counts.keySet().stream().mapToDouble(Double::doubleValue).toArray(),
+                counts.values().stream().mapToDouble(Integer::doubleValue).toArray());
+        WeightedSample raw = WeightedSample.evenWeightedSample(values);
+        PgDistribution distribution = new PgNormalDistribution(10, 2);
+
+        Assertions.assertEquals(values.length, binned.getEffectiveSize());
+        Assertions.assertEquals(EdfStatistics.cramerVonMises(raw, distribution),
+                new CramerVonMises().statistic(binned, distribution), 1e-9);
+        Assertions.assertEquals(EdfStatistics.kolmogorovSmirnov(raw, distribution),
+                new KolmogorovSmirnov().statistic(binned, distribution), 1e-12);
+        Assertions.assertEquals(EdfStatistics.andersonDarling(raw, distribution),
+                EdfStatistics.andersonDarling(binned, distribution), 1e-8);
+    }
+
+    @Test
+    public void testAndersonDarlingPValue() {
+        Assertions.assertEquals(0.10, EdfStatistics.andersonDarlingPValue(1.933, 1e6), 0.002);
+        Assertions.assertEquals(0.05, EdfStatistics.andersonDarlingPValue(2.492, 1e6), 0.002);
+        Assertions.assertEquals(0.01, EdfStatistics.andersonDarlingPValue(3.857, 1e6), 0.001);
+        Assertions.assertEquals(0.0, EdfStatistics.andersonDarlingPValue(Double.POSITIVE_INFINITY, 100));
+
+        Sample sample = DISTRIBUTION.generate(500, new Random(3));
+        WeightedSample weighted = WeightedSample.evenWeightedSample(sample.getValueArray());
+        Assertions.assertTrue(EdfStatistics.andersonDarlingPValue(
+                EdfStatistics.andersonDarling(weighted, DISTRIBUTION), weighted.getEffectiveSize()) > 0.01);
+        Assertions.assertTrue(EdfStatistics.andersonDarlingPValue(
+                EdfStatistics.andersonDarling(weighted, new PgLogNormalDistribution(1.2, 0.5)), weighted.getEffectiveSize()) < 0.01);
+    }
+
+    @Test
+    public void testContextMergedStatistics() {
+        Sample sample = DISTRIBUTION.generate(1000, new Random(4));
+        WeightedSample binned = WeightedSample.frequencyWeightedSample(
+                new double[]{1, 2, 3, 5, 8}, new double[]{10, 40, 25, 20, 5});
+        PgDistribution other = new PgLogNormalDistribution(1.1, 0.45);
+
+        EdfContext context = EdfContext.of(sample);
+        EdfContext.Statistics statistics = context.statistics(other);
+        Assertions.assertEquals(new CramerVonMises().statistic(sample, other), statistics.getCramerVonMises(), 1e-9);
+        Assertions.assertEquals(new KolmogorovSmirnov().statistic(sample, other), statistics.getKolmogorovSmirnov(), 0);
+        Assertions.assertEquals(classicAndersonDarling(sample, other), statistics.getAndersonDarling(), 1e-8);
+        Assertions.assertEquals(new CramerVonMises().test(sample, other), new CramerVonMises().test(context, other), 0);
+        Assertions.assertEquals(new KolmogorovSmirnov().test(sample, other), new KolmogorovSmirnov().test(context, other), 0);
+        Assertions.assertEquals(sample.getMin(), context.getMin());
+        Assertions.assertEquals(sample.getMax(), context.getMax());
+        Assertions.assertEquals(new AndersonDarling().statistic(sample, other), statistics.getAndersonDarling(), 1e-9);
+        Assertions.assertEquals(new CramerVonMises().test(sample, other), statistics.getCramerVonMisesPValue(), 1e-9);
+        Assertions.assertEquals(new KolmogorovSmirnov().test(sample, other), statistics.getKolmogorovSmirnovPValue(), 1e-9);
+        Assertions.assertEquals(new AndersonDarling().test(sample, other), statistics.getAndersonDarlingPValue(), 1e-9);
+
+        EdfContext weighted = EdfContext.of(binned);
+        EdfContext.Statistics weightedStatistics = weighted.statistics(other);
+        Assertions.assertTrue(weighted.isWeighted());
+        Assertions.assertEquals(100, weighted.getEffectiveSize(), 1e-9);
+        Assertions.assertEquals(EdfStatistics.cramerVonMises(binned, other), weightedStatistics.getCramerVonMises(), 1e-12);
+        Assertions.assertEquals(EdfStatistics.kolmogorovSmirnov(binned, other), weightedStatistics.getKolmogorovSmirnov(), 1e-12);
+        Assertions.assertEquals(EdfStatistics.andersonDarling(binned, other), weightedStatistics.getAndersonDarling(), 1e-12);
+        Assertions.assertEquals(new KolmogorovSmirnov().test(binned, other), new KolmogorovSmirnov().test(weighted, other), 0);
+    }
+
+    @Test
+    public void testAndersonDarlingOutsideOfSupport() {
+        Sample sample = new Sample(new double[]{-1, 0.2, 0.4, 0.6, 0.8});
+        PgDistribution uniform = new PgUniformDistribution(0, 1);
+
+        double statistic = new AndersonDarling().statistic(sample, uniform);
+
+        Assertions.assertTrue(Double.isFinite(statistic));
+        Assertions.assertTrue(statistic > new AndersonDarling().statistic(new Sample(new double[]{0.1, 0.2, 0.4, 0.6, 0.8}), uniform));
+        Assertions.assertTrue(new AndersonDarling().test(sample, uniform) < 0.01);
+    }
+
+    @Test
+    public void testCramerVonMisesPValueTableMatchesSeries() {
+        for (double statistic = 0.001; statistic < 3; statistic += 0.0037) {
+            double exact = CramerVonMises.exactPValue(statistic);
+            Assertions.assertEquals(exact, EdfStatistics.cramerVonMisesPValue(statistic),
+                    Math.max(1e-12, 1e-6 * exact), "statistic " + statistic);
+        }
+        for (double statistic = 3; statistic < 4; statistic += 0.1) {
+            double exact = CramerVonMises.exactPValue(statistic);
+            Assertions.assertEquals(exact, EdfStatistics.cramerVonMisesPValue(statistic), 0.01 * exact);
+        }
+        double previous = 1;
+        for (double statistic = 1e-4; statistic < 50; statistic *= 1.01) {
+            double pValue = EdfStatistics.cramerVonMisesPValue(statistic);
+            Assertions.assertTrue(pValue >= 0 && pValue <= previous + 1e-12, "statistic " + statistic);
+            previous = pValue;
+        }
+        Assertions.assertEquals(0, EdfStatistics.cramerVonMisesPValue(Double.POSITIVE_INFINITY));
+    }
+}
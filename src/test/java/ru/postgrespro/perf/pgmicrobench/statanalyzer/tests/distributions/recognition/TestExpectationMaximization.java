@@ -0,0 +1,120 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions.recognition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.AnalysisResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.StatAnalyzer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EstimatedParameters;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.ExpectationMaximization;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationDiagnostics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.TerminationReason;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestExpectationMaximization {
+    @Test
+    public void testThreeModes() {
+        PgCompositeDistribution target = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(100, 5), new PgLogNormalDistribution(Math.log(200), 0.05),
+                        new PgGumbelDistribution(300, 10)),
+                List.of(0.5, 0.3, 0.2));
+        Sample sample = target.generate(30000, new Random(1));
+        PgCompositeDistribution start = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(90, 20), new PgLogNormalDistribution(Math.log(220), 0.2),
+                        new PgGumbelDistribution(280, 30)),
+                List.of(1.0, 1.0, 1.0));
+
+        EstimatedParameters parameters = new ExpectationMaximization().fit(sample, start);
+        PgCompositeDistribution fitted = (PgCompositeDistribution) parameters.getDistribution();
+        OptimizationDiagnostics diagnostics = parameters.getDiagnostics();
+
+        Assertions.assertEquals(TerminationReason.CONVERGED, diagnostics.getTerminationReason());
+        Assertions.assertTrue(diagnostics.getIterations() < 100, "iterations: " + diagnostics.getIterations());
+        double[] trajectory = diagnostics.getBestValues();
+        for (int i = 1; i < trajectory.length; i++) {
+            Assertions.assertTrue(trajectory[i] <= trajectory[i - 1] + 1e-12);
+        }
+
+        double[] expectedWeights = {0.5, 0.3, 0.2};
+        for (int k = 0; k < 3; k++) {
+            PgDistribution component = fitted.getDistributions().get(k);
+            Assertions.assertEquals(expectedWeights[k], fitted.getWeights().get(k), 0.01);
+            double[] expected = target.getDistributions().get(k).getParamArray();
+            double[] actual = component.getParamArray();
+            for (int i = 0; i < expected.length; i++) {
+                Assertions.assertEquals(expected[i], actual[i], 0.1 * Math.abs(expected[i]));
+            }
+        }
+        Assertions.assertTrue(parameters.getPValue() > 0.01);
+    }
+
+    @Test
+    public void testCollapsedComponent() {
+        Sample sample = new PgNormalDistribution(100, 5).generate(10000, new Random(4));
+        PgCompositeDistribution start = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(100, 5), new PgNormalDistribution(1000, 1)),
+                List.of(1.0, 1.0));
+
+        EstimatedParameters parameters = new ExpectationMaximization().fit(sample, start);
+        PgCompositeDistribution fitted = (PgCompositeDistribution) parameters.getDistribution();
+
+        List<Double> weights = fitted.getWeights();
+        Assertions.assertEquals(1, weights.get(0) + weights.get(1), 1e-12);
+        Assertions.assertEquals(0, weights.get(1));
+        Assertions.assertEquals(1000, fitted.getDistributions().get(1).getParamArray()[0]);
+        double[] trajectory = parameters.getDiagnostics().getBestValues();
+        for (int i = 1; i < trajectory.length; i++) {
+            Assertions.assertTrue(trajectory[i] <= trajectory[i - 1] + 1e-12);
+        }
+    }
+
+    @Test
+    public void testExecutor() {
+        PgCompositeDistribution target = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(100, 5), new PgNormalDistribution(150, 10)),
+                List.of(0.6, 0.4));
+        Sample sample = target.generate(50000, new Random(5));
+        PgCompositeDistribution start = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(90, 20), new PgNormalDistribution(160, 20)),
+                List.of(1.0, 1.0));
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            EstimatedParameters sequential = new ExpectationMaximization().fit(sample, start);
+            EstimatedParameters parallel = new ExpectationMaximization(pool).fit(sample, start);
+
+            Assertions.assertArrayEquals(sequential.getDistribution().getParamArray(),
+                    parallel.getDistribution().getParamArray());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFinalParameterEstimator() {
+        PgCompositeDistribution target = new PgCompositeDistribution(
+                List.of(new PgLogNormalDistribution(Math.log(100), 0.05), new PgLogNormalDistribution(Math.log(300), 0.05)),
+                List.of(0.5, 0.5));
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(2))
+                .optimizeFinalSolution(true)
+                .finalParameterEstimator(new ExpectationMaximization())
+                .build();
+
+        AnalysisResult result = statAnalyzer.analyze(target.generate(20000, new Random(3)).getValues());
+
+        Assertions.assertEquals(2, result.getModeNumber());
+        PgCompositeDistribution fitted = result.getCompositeDistribution();
+        Assertions.assertEquals(0.5, fitted.getWeights().get(0), 0.02);
+        Assertions.assertEquals(0.5, fitted.cdf(200), 0.02);
+    }
+}
@@ -0,0 +1,80 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.distributions.recognition;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDifferentiableDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgFrechetDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGammaDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgSimpleDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgWeibullDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EstimatedParameters;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.FastEstimators;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.FastParameterEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.Random;
+import java.util.stream.Stream;
+
+public class TestFastEstimators {
+    private static Stream<Arguments> distributions() {
+        return Stream.of(
+                Arguments.of(new PgNormalDistribution(1000, 20)),
+                Arguments.of(new PgLogNormalDistribution(1, 0.5)),
+                Arguments.of(new PgGumbelDistribution(10, 3)),
+                Arguments.of(new PgWeibullDistribution(2, 5)),
+                Arguments.of(new PgWeibullDistribution(0.7, 1e6)),
+                Arguments.of(new PgFrechetDistribution(4, 2)),
+                Arguments.of(new PgGammaDistribution(3, 2)),
+                Arguments.of(new PgGammaDistribution(0.5, 100)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("distributions")
+    public void testMatchesMaximumLikelihood(PgDifferentiableDistribution distribution) {
+        Sample sample = distribution.generate(5000, new Random(3));
+
+        PgSimpleDistribution fast = FastEstimators.forType(distribution.getType()).estimate(sample);
+        double[] optimized = PgOptimizer.maximizeLikelihood(sample, distribution, null).getPoint();
+
+        double[] params = fast.getParamArray();
+        double[] expected = distribution.getParamArray();
+        for (int i = 0; i < params.length; i++) {
+            Assertions.assertEquals(optimized[i], params[i], 1e-5 * Math.max(1, Math.abs(optimized[i])));
+            Assertions.assertEquals(expected[i], params[i], 0.1 * Math.abs(expected[i]));
+        }
+    }
+
+    @Test
+    public void testUnsupportedSample() {
+        Sample sample = new Sample(new double[]{-1, 2, 3});
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FastEstimators.weibull(sample));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> FastEstimators.gumbel(new Sample(new double[]{1, 1, 1})));
+    }
+
+    @Test
+    public void testFastParameterEstimator() {
+        FastParameterEstimator estimator = new FastParameterEstimator();
+        Sample logNormalSample = new PgLogNormalDistribution(1, 0.5).generate(2000, new Random(4));
+
+        EstimatedParameters accepted = estimator.fit(logNormalSample, new PgLogNormalDistribution(0, 1));
+        Assertions.assertEquals(1, accepted.getDistribution().getParamArray()[0], 0.1);
+        Assertions.assertNull(accepted.getDiagnostics());
+        Assertions.assertEquals(1, estimator.getAcceptedFits());
+
+        Sample normalSample = new PgNormalDistribution(1000, 20).generate(2000, new Random(5));
+        EstimatedParameters refined = estimator.fit(normalSample, new PgGumbelDistribution(1, 1));
+        Assertions.assertNotNull(refined.getDiagnostics());
+        Assertions.assertEquals(1, estimator.getRefinedFits());
+
+        estimator.fit(new Sample(new double[]{-1, 1, 2, 3, 4}), new PgWeibullDistribution(1, 1));
+        Assertions.assertEquals(1, estimator.getUnsupportedFits());
+        Assertions.assertEquals(1.0 / 3, estimator.getAcceptanceRate(), 1e-12);
+    }
+}
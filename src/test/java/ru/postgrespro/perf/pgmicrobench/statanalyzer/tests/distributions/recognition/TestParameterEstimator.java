@@ -48,7 +48,8 @@ public class TestParameterEstimator {
         return Stream.of(
                 new MaximumLikelihoodEstimation(),
                 new KolmogorovSmirnov(),
-                new CramerVonMises()
+                new CramerVonMises(),
+                new AndersonDarling()
                 //new Multicriteria()
         ).map(estimator ->
                 distributions.stream().map(d -> Arguments.of(
@@ -0,0 +1,113 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.estimators;
+
+import org.apache.commons.math3.distribution.BetaDistribution;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.*;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.HarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.IQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.estimators.TrimmedHarrellDavisQuantileEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.util.RegularizedBeta;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Test of Harrell-Davis estimators: trimmed against exact, parallel against sequential.
+ */
+public class TestHarrellDavisQuantileEstimator {
+    private static final List<Double> PROBABILITIES = IntStream.rangeClosed(1, 99)
+            .mapToObj(i -> i / 100.0)
+            .collect(Collectors.toUnmodifiableList());
+
+    static Stream<Arguments> provideSamples() {
+        Random random = new Random(42);
+        return Stream.of(
+                new PgNormalDistribution(10, 2),
+                new PgLogNormalDistribution(2, 1),
+                new PgGumbelDistribution(5, 3),
+                new PgWeibullDistribution(2, 10)
+        ).flatMap(d -> Stream.of(10, 100, 5000)
+                .map(size -> Arguments.of(d, d.generate(size, random))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("provideSamples")
+    void trimmedWithinBound(PgDistribution distribution, Sample sample) {
+        WeightedSample weightedSample = WeightedSample.evenWeightedSample(sample.getValueArray());
+        TrimmedHarrellDavisQuantileEstimator trimmed = TrimmedHarrellDavisQuantileEstimator.getInstance();
+
+        double[] exact = HarrellDavisQuantileEstimator.getInstance().quantiles(weightedSample, PROBABILITIES);
+        double[] actual = trimmed.quantiles(weightedSample, PROBABILITIES);
+
+        double bound = (1 - trimmed.getMass()) * (sample.getMax() - sample.getMin());
+        for (int i = 0; i < exact.length; i++) {
+            Assertions.assertEquals(exact[i], actual[i], bound,
+                    distribution + ", n = " + sample.size() + ", p = " + PROBABILITIES.get(i));
+        }
+    }
+
+    @Test
+    void fullMassEqualsExact() {
+        Random random = new Random(1);
+        double[] values = random.doubles(300).toArray();
+        double[] weights = random.doubles(300).toArray();
+        WeightedSample sample = new WeightedSample(values, weights);
+
+        Assertions.assertArrayEquals(
+                HarrellDavisQuantileEstimator.getInstance().quantiles(sample, PROBABILITIES),
+                new TrimmedHarrellDavisQuantileEstimator(1).quantiles(sample, PROBABILITIES),
+                1e-12);
+    }
+
+    @Test
+    void parallelEqualsSequential() {
+        double[] values = new Random(2).doubles(2000).toArray();
+        WeightedSample sample = WeightedSample.evenWeightedSample(values);
+        IQuantileEstimator defaultParallel = new IQuantileEstimator() {
+            @Override
+            public double[] quantiles(WeightedSample sample, List<Double> probabilities) {
+                return HarrellDavisQuantileEstimator.getInstance().quantiles(sample, probabilities);
+            }
+
+            @Override
+            public boolean supportsWeightedSamples() {
+                return true;
+            }
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            for (IQuantileEstimator estimator : List.of(HarrellDavisQuantileEstimator.getInstance(),
+                    TrimmedHarrellDavisQuantileEstimator.getInstance(), defaultParallel)) {
+                Assertions.assertArrayEquals(estimator.quantiles(sample, PROBABILITIES),
+                        estimator.quantiles(sample, PROBABILITIES, pool));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void regularizedBetaMatchesCommons() {
+        double[][] parameters = {{0.5, 0.5}, {1, 3}, {2.5, 7}, {50, 950}, {5000.5, 4000.5}};
+        for (double[] p : parameters) {
+            BetaDistribution expected = new BetaDistribution(null, p[0], p[1]);
+            RegularizedBeta actual = new RegularizedBeta(p[0], p[1]);
+            for (int i = 0; i <= 1000; i++) {
+                double x = i / 1000.0;
+                Assertions.assertEquals(expected.cumulativeProbability(x), actual.value(x), 1e-12,
+                        "Beta(" + p[0] + ", " + p[1] + ") at " + x);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.histogram;
+
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.AnalysisResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.StatAnalyzer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.HistogramSamples;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.Random;
+
+public class TestHistogramSamples {
+    private static Histogram bimodalHistogram(int size) {
+        Random random = new Random(42);
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < size; i++) {
+            double center = i % 2 == 0 ? 100_000 : 300_000;
+            histogram.recordValue((long) (center + random.nextGaussian() * 10_000));
+        }
+        return histogram;
+    }
+
+    @Test
+    public void testWeightedSample() {
+        Histogram histogram = new Histogram(3);
+        histogram.recordValueWithCount(10, 3);
+        histogram.recordValueWithCount(20_000, 1);
+
+        WeightedSample sample = HistogramSamples.toWeightedSample(histogram, 10);
+
+        Assertions.assertArrayEquals(new double[]{1, 2000.75}, sample.getValueArray(), 1e-12);
+        Assertions.assertArrayEquals(new double[]{0.75, 0.25}, sample.getWeightArray(), 1e-12);
+    }
+
+    @Test
+    public void testQuantileValues() {
+        Histogram histogram = new Histogram(3);
+        histogram.recordValueWithCount(10, 3);
+        histogram.recordValueWithCount(20_000, 1);
+
+        Assertions.assertArrayEquals(new double[]{10.5, 10.5, 10.5, 20_008},
+                HistogramSamples.toQuantileValues(histogram, 4, 1), 0.5);
+
+        double[] values = HistogramSamples.toQuantileValues(bimodalHistogram(100_000), 1000, 1e3);
+        Assertions.assertEquals(1000, values.length);
+        Assertions.assertTrue(values[0] > 50 && values[999] < 350);
+        Assertions.assertEquals(100, values[250], 5);
+        Assertions.assertEquals(300, values[750], 5);
+    }
+
+    @Test
+    public void testEmptyHistogram() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> HistogramSamples.toWeightedSample(new Histogram(3), 1));
+    }
+
+    @Test
+    public void testAnalyzeHistogram() {
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(1))
+                .histogramSampleSize(20_000)
+                .build();
+
+        AnalysisResult analysisResult = statAnalyzer.analyze(bimodalHistogram(200_000), 1e3);
+
+        Assertions.assertEquals(2, analysisResult.getModeNumber());
+        Assertions.assertEquals(100, analysisResult.getModeReports().get(0).getLocation(), 10);
+        Assertions.assertEquals(300, analysisResult.getModeReports().get(1).getLocation(), 10);
+    }
+}
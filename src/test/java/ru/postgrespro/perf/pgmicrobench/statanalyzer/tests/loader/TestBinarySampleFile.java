@@ -0,0 +1,85 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.loader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.BinarySampleFile;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.LatencyUnit;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.SampleEncoding;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.TextSampleReader;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class TestBinarySampleFile {
+    @TempDir
+    Path dir;
+
+    private static double[] latencies(int size) {
+        Random random = new Random(42);
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = Math.round(Math.exp(random.nextGaussian()) * 1e6) / 1e3;
+        }
+        return values;
+    }
+
+    @Test
+    public void testDoubleRoundTrip() throws IOException {
+        double[] values = latencies(10000);
+        Path file = dir.resolve("sample.bin");
+
+        BinarySampleFile.write(file, values, LatencyUnit.MILLISECONDS, SampleEncoding.DOUBLE, false);
+        BinarySampleFile read = BinarySampleFile.read(file);
+
+        Assertions.assertArrayEquals(values, read.getValueArray());
+        Assertions.assertEquals(SampleEncoding.DOUBLE, read.getEncoding());
+        Assertions.assertEquals(LatencyUnit.MILLISECONDS, read.getUnit());
+        Assertions.assertFalse(read.isSorted());
+        Assertions.assertEquals(Arrays.stream(values).min().orElseThrow(), read.getMin());
+        Assertions.assertEquals(Arrays.stream(values).max().orElseThrow(), read.getMax());
+    }
+
+    @Test
+    public void testSortedDeltaRoundTrip() throws IOException {
+        double[] values = latencies(10000);
+        Path file = dir.resolve("sample.bin");
+
+        BinarySampleFile.write(file, values, LatencyUnit.MICROSECONDS, SampleEncoding.DELTA_NANOS, true);
+        BinarySampleFile read = BinarySampleFile.read(file);
+        Sample sample = read.toSample();
+
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        Assertions.assertTrue(read.isSorted());
+        Assertions.assertArrayEquals(sorted, read.getValueArray(), 1e-9);
+        Assertions.assertSame(sample.getValueArray(), sample.getSortedValueArray());
+        Assertions.assertTrue(Files.size(file) < (long) values.length * Double.BYTES / 2);
+    }
+
+    @Test
+    public void testConvertFromText() throws IOException {
+        Path text = dir.resolve("sample.txt");
+        Files.writeString(text, "latency\n1.5\n-2\n3.25\n");
+        Path binary = dir.resolve("sample.bin");
+
+        BinarySampleFile.convert(text, binary, TextSampleReader.builder().build(),
+                LatencyUnit.MILLISECONDS, SampleEncoding.DELTA_NANOS, false);
+
+        Assertions.assertArrayEquals(new double[]{1.5, -2, 3.25}, BinarySampleFile.read(binary).getValueArray(), 1e-12);
+    }
+
+    @Test
+    public void testInvalidFiles() throws IOException {
+        Path file = dir.resolve("sample.bin");
+        Files.writeString(file, "definitely not a binary sample file");
+        Assertions.assertThrows(IOException.class, () -> BinarySampleFile.read(file));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BinarySampleFile.write(file,
+                new double[]{Double.NaN}, LatencyUnit.NANOSECONDS, SampleEncoding.DELTA_NANOS, false));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.loader;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.DoubleArrayBuffer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.loader.TextSampleReader;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+
+public class TestTextSampleReader {
+    @TempDir
+    Path dir;
+
+    private Path write(String content) throws IOException {
+        Path file = dir.resolve("sample.txt");
+        Files.write(file, content.getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    @Test
+    public void testReadAllTokens() throws IOException {
+        Path file = write("# latencies\n1.5 2\t-3e2\r\n.25,4.,abc;1E-3\n\n7");
+
+        double[] values = TextSampleReader.builder().build().read(file).toArray();
+
+        Assertions.assertArrayEquals(new double[]{1.5, 2, -300, 0.25, 4, 0.001, 7}, values);
+    }
+
+    @Test
+    public void testColumnSelection() throws IOException {
+        Path file = write("client,latency\n0,10.5\n1,11\n2\n3,12.25,99\n");
+
+        double[] values = TextSampleReader.builder().column(1).build().read(file).toArray();
+
+        Assertions.assertArrayEquals(new double[]{10.5, 11, 12.25}, values);
+    }
+
+    @Test
+    public void testLimit() throws IOException {
+        Path file = write("1 2 3\n4 5 6\n");
+
+        double[] values = TextSampleReader.builder().limit(4).build().read(file).toArray();
+
+        Assertions.assertArrayEquals(new double[]{1, 2, 3, 4}, values);
+    }
+
+    @Test
+    public void testSmallMappingWindows() throws IOException {
+        StringBuilder content = new StringBuilder();
+        double[] expected = new double[1000];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i * 0.5;
+            content.append(i).append(' ').append(expected[i]).append('\n');
+        }
+        Path file = write(content.toString());
+
+        double[] values = TextSampleReader.builder().column(1).mappingSize(32).build().read(file).toArray();
+
+        Assertions.assertArrayEquals(expected, values);
+        Assertions.assertThrows(IOException.class,
+                () -> TextSampleReader.builder().mappingSize(4).build().read(file));
+    }
+
+    @Test
+    public void testParsingMatchesJdk() throws IOException {
+        Random random = new Random(42);
+        StringBuilder content = new StringBuilder();
+        String[] tokens = new String[5000];
+        for (int i = 0; i < tokens.length; i++) {
+            double value = Math.exp(random.nextGaussian() * 20) * (random.nextBoolean() ? 1 : -1);
+            tokens[i] = i % 3 == 0 ? String.format(Locale.ROOT, "%.6f", value) : Double.toString(value);
+            content.append(tokens[i]).append('\n');
+        }
+        content.append("123456789012345678901234567890\nNaN\n-Infinity\n");
+        Path file = write(content.toString());
+
+        DoubleArrayBuffer buffer = TextSampleReader.builder().build().read(file);
+
+        Assertions.assertEquals(tokens.length + 3, buffer.size());
+        for (int i = 0; i < tokens.length; i++) {
+            Assertions.assertEquals(Double.parseDouble(tokens[i]), buffer.get(i), tokens[i]);
+        }
+        Assertions.assertEquals(Double.parseDouble("123456789012345678901234567890"), buffer.get(tokens.length));
+        Assertions.assertTrue(Double.isNaN(buffer.get(tokens.length + 1)));
+        Assertions.assertEquals(Double.NEGATIVE_INFINITY, buffer.get(tokens.length + 2));
+    }
+}
@@ -0,0 +1,65 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.AnalysisResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.StatAnalyzer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics.AnalysisMetrics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.metrics.StageMetrics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+public class TestAnalysisMetrics {
+    @Test
+    public void testMeasure() {
+        ConcurrentLinkedQueue<StageMetrics> received = new ConcurrentLinkedQueue<>();
+        AnalysisMetrics metrics = new AnalysisMetrics(received::add);
+        Sample sample = new PgLogNormalDistribution(1, 0.5).generate(1000, new Random(1));
+
+        double value = metrics.measure("fit \"quoted\"",
+                () -> new CramerVonMises().fit(sample, new PgLogNormalDistribution(1.5, 1)).getPValue());
+        Assertions.assertThrows(IllegalStateException.class, () -> metrics.measure("failing", () -> {
+            throw new IllegalStateException();
+        }));
+
+        List<StageMetrics> stages = metrics.getStages();
+        Assertions.assertTrue(value > 0);
+        Assertions.assertEquals(List.copyOf(received), stages);
+        Assertions.assertEquals(2, stages.size());
+        Assertions.assertTrue(stages.get(0).getEvaluations() > 0);
+        Assertions.assertTrue(stages.get(0).getWallNanos() > 0);
+        Assertions.assertEquals(0, stages.get(1).getEvaluations());
+        Assertions.assertTrue(metrics.toJson().startsWith("[{\"stage\":\"fit \\\"quoted\\\"\",\"thread\":"));
+    }
+
+    @Test
+    public void testAnalysisStages() {
+        Sample sample = new PgLogNormalDistribution(1, 0.2).generate(2000, new Random(2));
+        StatAnalyzer statAnalyzer = StatAnalyzer.builder()
+                .random(new Random(3))
+                .build();
+
+        AnalysisResult result = statAnalyzer.analyze(sample.getValues());
+
+        Map<String, StageMetrics> stages = result.getMetrics().getStages().stream()
+                .collect(Collectors.toMap(StageMetrics::getStage, Function.identity()));
+        Assertions.assertTrue(stages.keySet().containsAll(List.of("analyze", "findModes", "splitParamsTest",
+                "modeReports", "modeReports/mode[0]", "modeReports/mode[0]/fit[LOGNORMAL]", "test")), stages.keySet().toString());
+        Assertions.assertTrue(stages.get("modeReports/mode[0]/fit[LOGNORMAL]").getEvaluations() > 0);
+        Assertions.assertTrue(stages.get("analyze").getWallNanos() >= stages.get("modeReports").getWallNanos());
+
+        AnalysisResult withoutMetrics = new AnalysisResult(result.getModeNumber(), result.getPValue(),
+                result.getModeReports(), result.getCompositeDistribution());
+        Assertions.assertEquals(withoutMetrics, result);
+        Assertions.assertEquals(withoutMetrics.hashCode(), result.hashCode());
+        Assertions.assertEquals(withoutMetrics.toString(), result.toString());
+    }
+}
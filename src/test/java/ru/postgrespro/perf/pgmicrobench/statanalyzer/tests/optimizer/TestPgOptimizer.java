@@ -0,0 +1,211 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.optimizer;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgCompositeDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgDifferentiableDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgFrechetDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGammaDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgGumbelDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgLogNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgNormalDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.PgWeibullDistribution;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.CramerVonMises;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.EstimatedParameters;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.KolmogorovSmirnov;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.MaximumLikelihoodEstimation;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.distributions.recognition.ProgressiveParameterEstimator;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.IOptimizationListener;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationDiagnostics;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.OptimizationResult;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.PgOptimizer;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.optimizer.TerminationReason;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.Sample;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+public class TestPgOptimizer {
+    private static final Sample SAMPLE = new PgLogNormalDistribution(1, 0.5).generate(1000, new Random(1));
+
+    @Test
+    public void testDiagnostics() {
+        List<Double> iterationValues = new ArrayList<>();
+        int[] evaluations = new int[1];
+        OptimizationDiagnostics[] finished = new OptimizationDiagnostics[1];
+        IOptimizationListener listener = new IOptimizationListener() {
+            @Override
+            public void onEvaluation(int evaluation, double[] point, double value) {
+                evaluations[0]++;
+                Assertions.assertEquals(evaluations[0], evaluation);
+            }
+
+            @Override
+            public void onIteration(int iteration, int evaluationCount, double bestValue) {
+                iterationValues.add(bestValue);
+                Assertions.assertEquals(iterationValues.size(), iteration);
+            }
+
+            @Override
+            public void onFinish(OptimizationDiagnostics diagnostics) {
+                finished[0] = diagnostics;
+            }
+        };
+
+        long threadEvaluations = PgOptimizer.getThreadEvaluations();
+        OptimizationResult result = PgOptimizer.optimize(SAMPLE, new PgLogNormalDistribution(0, 1), new CramerVonMises(), listener);
+        OptimizationDiagnostics diagnostics = result.getDiagnostics();
+
+        Assertions.assertSame(diagnostics, finished[0]);
+        Assertions.assertEquals(TerminationReason.CONVERGED, diagnostics.getTerminationReason());
+        Assertions.assertEquals(evaluations[0], diagnostics.getEvaluations());
+        Assertions.assertEquals(diagnostics.getEvaluations(), PgOptimizer.getThreadEvaluations() - threadEvaluations);
+        Assertions.assertEquals(diagnostics.getIterations(), iterationValues.size());
+        Assertions.assertEquals(diagnostics.getIterations() + 1, diagnostics.getBestValues().length);
+        Assertions.assertTrue(diagnostics.getNanosPerEvaluation() > 0);
+
+        double[] bestValues = diagnostics.getBestValues();
+        for (int i = 1; i < bestValues.length; i++) {
+            Assertions.assertTrue(bestValues[i] <= bestValues[i - 1]);
+            Assertions.assertEquals(iterationValues.get(i - 1), bestValues[i]);
+        }
+        Assertions.assertEquals(result.getValue(), diagnostics.getBestValue(), 1e-12);
+        Assertions.assertEquals(1, result.getPoint()[0], 0.1);
+        Assertions.assertEquals(0.5, result.getPoint()[1], 0.05);
+    }
+
+    @Test
+    public void testEstimatedParametersDiagnostics() {
+        EstimatedParameters parameters = new CramerVonMises().fit(SAMPLE, new PgLogNormalDistribution(0, 1));
+
+        Assertions.assertNotNull(parameters.getDiagnostics());
+        Assertions.assertTrue(parameters.getDiagnostics().getEvaluations() > 0);
+        Assertions.assertTrue(parameters.getDiagnostics().getEvaluations() <= 10000);
+    }
+
+    @Test
+    public void testParallelPopulationIsDeterministic() {
+        PgCompositeDistribution target = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(100, 5), new PgGumbelDistribution(200, 10)), List.of(0.4, 0.6));
+        Sample sample = target.generate(500, new Random(3));
+        PgCompositeDistribution start = new PgCompositeDistribution(
+                List.of(new PgNormalDistribution(90, 10), new PgGumbelDistribution(210, 20)), List.of(0.5, 0.5));
+        List<Double> sequentialValues = new ArrayList<>();
+        List<Double> parallelValues = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        Executor idle = task -> {
+        };
+
+        try {
+            OptimizationResult sequential = PgOptimizer.optimize(sample, start, new KolmogorovSmirnov(),
+                    new IOptimizationListener() {
+                        @Override
+                        public void onEvaluation(int evaluation, double[] point, double value) {
+                            sequentialValues.add(value);
+                        }
+                    });
+            OptimizationResult parallel = PgOptimizer.optimize(sample, start, new KolmogorovSmirnov(),
+                    new IOptimizationListener() {
+                        @Override
+                        public void onEvaluation(int evaluation, double[] point, double value) {
+                            parallelValues.add(value);
+                        }
+                    }, pool);
+            OptimizationResult callerOnly = PgOptimizer.optimize(sample, start, new KolmogorovSmirnov(), null, idle);
+
+            Assertions.assertArrayEquals(sequential.getPoint(), parallel.getPoint(), 0);
+            Assertions.assertArrayEquals(sequential.getPoint(), callerOnly.getPoint(), 0);
+            Assertions.assertEquals(sequentialValues, parallelValues);
+            Assertions.assertEquals(sequential.getDiagnostics().getEvaluations(), parallel.getDiagnostics().getEvaluations());
+            Assertions.assertArrayEquals(sequential.getDiagnostics().getBestValues(), parallel.getDiagnostics().getBestValues(), 0);
+            Assertions.assertArrayEquals(start.newDistribution(sequential.getPoint()).getParamArray(),
+                    new KolmogorovSmirnov(pool).fit(sample, start).getDistribution().getParamArray(), 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testProgressiveOptimization() {
+        Sample sample = new PgLogNormalDistribution(1, 0.5).generate(100000, new Random(4));
+        PgLogNormalDistribution start = new PgLogNormalDistribution(0.5, 1);
+        CramerVonMises cvm = new CramerVonMises();
+
+        OptimizationResult result = PgOptimizer.optimizeProgressive(sample, start, cvm, null, null);
+        OptimizationDiagnostics diagnostics = result.getDiagnostics();
+        double[] bestValues = diagnostics.getBestValues();
+
+        Assertions.assertArrayEquals(new double[]{1, 0.5}, result.getPoint(), 0.01);
+        Assertions.assertEquals(cvm.statistic(sample, start.newDistribution(result.getPoint())), result.getValue(), 0);
+        Assertions.assertEquals(diagnostics.getIterations() + 1, bestValues.length);
+        Assertions.assertEquals(result.getValue(), diagnostics.getBestValue(), 0);
+        for (int i = 1; i < bestValues.length; i++) {
+            Assertions.assertTrue(bestValues[i] <= bestValues[i - 1]);
+        }
+
+        EstimatedParameters estimated = new ProgressiveParameterEstimator().fit(sample, start);
+        Assertions.assertArrayEquals(result.getPoint(), estimated.getDistribution().getParamArray(), 0);
+        Assertions.assertTrue(estimated.getPValue() > 0.05);
+    }
+
+    @Test
+    public void testProgressiveOptimizationOfSmallSample() {
+        PgLogNormalDistribution start = new PgLogNormalDistribution(0.5, 1);
+
+        OptimizationResult direct = PgOptimizer.optimize(SAMPLE, start, new CramerVonMises(), null);
+        OptimizationResult progressive = PgOptimizer.optimizeProgressive(SAMPLE, start, new CramerVonMises(), null, null);
+
+        Assertions.assertArrayEquals(direct.getPoint(), progressive.getPoint(), 0);
+        Assertions.assertEquals(direct.getDiagnostics().getEvaluations(), progressive.getDiagnostics().getEvaluations());
+    }
+
+    @ParameterizedTest
+    @MethodSource("differentiableDistributions")
+    public void testMaximizeLikelihood(PgDifferentiableDistribution distribution, PgDifferentiableDistribution start) {
+        Sample sample = distribution.generate(5000, new Random(2));
+
+        OptimizationResult result = PgOptimizer.maximizeLikelihood(sample, start, null);
+        OptimizationDiagnostics diagnostics = result.getDiagnostics();
+
+        Assertions.assertEquals(TerminationReason.CONVERGED, diagnostics.getTerminationReason());
+        Assertions.assertTrue(diagnostics.getEvaluations() < 100, "evaluations: " + diagnostics.getEvaluations());
+        double[] expected = distribution.getParamArray();
+        double[] actual = result.getPoint();
+        for (int i = 0; i < expected.length; i++) {
+            Assertions.assertEquals(expected[i], actual[i], 0.1 * Math.abs(expected[i]));
+        }
+
+        double[] gradient = new double[expected.length];
+        distribution.newDistribution(actual).logLikelihood(sample.getValueArray(), gradient);
+        for (double g : gradient) {
+            Assertions.assertEquals(0, g / sample.size(), 1e-6);
+        }
+    }
+
+    private static Stream<Arguments> differentiableDistributions() {
+        return Stream.of(
+                Arguments.of(new PgNormalDistribution(1000, 20), new PgNormalDistribution(900, 50)),
+                Arguments.of(new PgLogNormalDistribution(1, 0.5), new PgLogNormalDistribution(1, 0.5)),
+                Arguments.of(new PgLogNormalDistribution(1, 0.5), new PgLogNormalDistribution(0, 2)),
+                Arguments.of(new PgGumbelDistribution(10, 3), new PgGumbelDistribution(1, 1)),
+                Arguments.of(new PgWeibullDistribution(2, 5), new PgWeibullDistribution(1, 1)),
+                Arguments.of(new PgFrechetDistribution(4, 2), new PgFrechetDistribution(5, 1)),
+                Arguments.of(new PgGammaDistribution(3, 2), new PgGammaDistribution(1, 1)));
+    }
+
+    @Test
+    public void testMaximumLikelihoodEstimation() {
+        EstimatedParameters parameters = new MaximumLikelihoodEstimation().fit(SAMPLE, new PgLogNormalDistribution(0, 1));
+
+        Assertions.assertTrue(parameters.getDiagnostics().getEvaluations() < 100);
+        Assertions.assertEquals(1, parameters.getDistribution().getParamArray()[0], 0.1);
+        Assertions.assertEquals(0.5, parameters.getDistribution().getParamArray()[1], 0.05);
+    }
+}
@@ -0,0 +1,28 @@
+package ru.postgrespro.perf.pgmicrobench.statanalyzer.tests.sample;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.histogram.density.DensityHistogramBin;
+import ru.postgrespro.perf.pgmicrobench.statanalyzer.sample.WeightedSample;
+
+import java.util.List;
+
+public class TestWeightedSample {
+    @Test
+    public void testSortedWeightsFollowValues() {
+        WeightedSample sample = new WeightedSample(new double[]{3, 1, 2}, new double[]{3, 1, 2});
+
+        Assertions.assertArrayEquals(new double[]{1, 2, 3}, sample.getSortedValueArray());
+        Assertions.assertArrayEquals(new double[]{1.0 / 6, 2.0 / 6, 3.0 / 6}, sample.getSortedWeightArray(), 1e-12);
+        Assertions.assertEquals(List.of(1.0, 2.0, 3.0), sample.getSortedValues());
+    }
+
+    @Test
+    public void testWeightForBin() {
+        WeightedSample sample = new WeightedSample(new double[]{5, 1, 2, 4}, new double[]{1, 1, 1, 1});
+
+        Assertions.assertEquals(0.5, sample.getWeightForBin(new DensityHistogramBin(1, 2, 1)), 1e-12);
+        Assertions.assertEquals(0.25, sample.getWeightForBin(new DensityHistogramBin(2.5, 4, 1)), 1e-12);
+        Assertions.assertEquals(0.0, sample.getWeightForBin(new DensityHistogramBin(6, 7, 1)), 1e-12);
+    }
+}